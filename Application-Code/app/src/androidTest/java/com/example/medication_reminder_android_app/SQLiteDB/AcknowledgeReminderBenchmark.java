@@ -0,0 +1,115 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Acknowledgements per second on a database seeded with MEDICATIONS medications, each with a
+ * reminder and a week of dose occurrences. Each reminder is acknowledged once, the way the app
+ * did it before DataAccessObject.acknowledgeReminder (separate reads and autocommitted writes)
+ * and through acknowledgeReminder (one transaction). The database is on disk so every commit
+ * pays for its sync, as it does in the app. Results are logged under app-benchmark.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AcknowledgeReminderBenchmark {
+
+    private static final String TAG = "app-benchmark";
+    private static final String DB_NAME = "acknowledge-benchmark";
+    private static final int MEDICATIONS = 500;
+
+    private Context context;
+    private AppDatabase db;
+    private DataAccessObject dao;
+    private final List<Long> reminderIds = new ArrayList<>();
+    private long dueAt; //what every seeded reminder's notification carries
+    private long now;
+
+    @Before
+    public void seedDatabase() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DB_NAME);
+        db = Room.databaseBuilder(context, AppDatabase.class, DB_NAME).build();
+        dao = db.dataAccessObject();
+        dueAt = DateTimeCodec.parse("2021-03-01 08:00");
+        now = dueAt + 60_000;
+        db.runInTransaction(() -> {
+            for(int i = 0; i < MEDICATIONS; i++){
+                long medId = dao.insertMedication(new MedicationEntity("Medication " + i, "10 mg", 1,
+                        "2021-03-01 08:00", "", "8, 8, 8", "", "", ""));
+                ReminderEntity r = new ReminderEntity("M", "08:00", "2021-03-01", 0, medId);
+                r.setDueAtEpochMillis(dueAt);
+                long reminderId = dao.insertReminder(r);
+                dao.insertMedicationState(new MedicationStateEntity(medId, reminderId, null));
+                reminderIds.add(reminderId);
+            }
+            DoseOccurrenceGenerator.topUpAll(dao, now);
+        });
+    }
+
+    @After
+    public void closeDatabase() {
+        db.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void acknowledge_separateStatements() {
+        long started = SystemClock.elapsedRealtime();
+        for(long reminderId : reminderIds){
+            ReminderEntity r = dao.getReminderNow(reminderId);
+            MedicationEntity m = dao.getMedicationNow(r.getMedApptId());
+            long due = r.getDueAtEpochMillis();
+            TimeRuleSchedule schedule = TimeRuleSchedule.forMedication(m);
+            long next = schedule.nextAfter(Math.max(due, now));
+            int intervals = schedule.intervalCount();
+            int intervalIndex = intervals == 0 ? 0 : (r.getTimeIntervalIndex() + 1) % intervals;
+            dao.updateDateAndTime(reminderId, DateTimeCodec.formatDate(next), DateTimeCodec.formatTime(next), intervalIndex, next);
+            dao.insertAcknowledgement(new AcknowledgementEntity(m.getPrimaryKey(), now));
+            dao.updateLastTakenAt(m.getPrimaryKey(), now);
+            dao.updateDoseOccurrence(m.getPrimaryKey(), due, DoseOccurrenceEntity.TAKEN, now);
+        }
+        long millis = SystemClock.elapsedRealtime() - started;
+
+        Log.i(TAG, "Separate statements: " + MEDICATIONS + " acknowledgements in " + millis + "ms, "
+                + perSecond(millis) + " acks/s");
+        assertAllMovedOn();
+    }
+
+    @Test
+    public void acknowledge_oneTransaction() {
+        long started = SystemClock.elapsedRealtime();
+        for(long reminderId : reminderIds){
+            dao.acknowledgeReminder(reminderId, dueAt, false, now);
+        }
+        long millis = SystemClock.elapsedRealtime() - started;
+
+        Log.i(TAG, "acknowledgeReminder: " + MEDICATIONS + " acknowledgements in " + millis + "ms, "
+                + perSecond(millis) + " acks/s");
+        assertAllMovedOn();
+    }
+
+    private void assertAllMovedOn() {
+        for(long reminderId : reminderIds){
+            assertEquals(DateTimeCodec.parse("2021-03-01 16:00"), dao.getReminderNow(reminderId).getDueAtEpochMillis());
+        }
+    }
+
+    private static long perSecond(long millis) {
+        return millis == 0 ? MEDICATIONS : MEDICATIONS * 1000L / millis;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * A second tap on the same notification carries the due time the first one already acknowledged,
+ * and must not record another dose or move the reminder past the next one
+ */
+@RunWith(AndroidJUnit4.class)
+public class AcknowledgeReminderTest {
+
+    private AppDatabase db;
+    private DataAccessObject dao;
+    private long medId;
+    private long reminderId;
+    private long dueAt;
+
+    @Before
+    public void openDatabase() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        dao = db.dataAccessObject();
+        dueAt = DateTimeCodec.parse("2021-03-01 08:00");
+        db.runInTransaction(() -> {
+            medId = dao.insertMedication(new MedicationEntity("Ibuprofen", "200 mg", 1, "2021-03-01 08:00", "",
+                    "8, 8, 8", "", "", ""));
+            ReminderEntity r = new ReminderEntity("M", "08:00", "2021-03-01", 0, medId);
+            r.setDueAtEpochMillis(dueAt);
+            reminderId = dao.insertReminder(r);
+            dao.insertMedicationState(new MedicationStateEntity(medId, reminderId, null));
+        });
+    }
+
+    @After
+    public void closeDatabase() {
+        db.close();
+    }
+
+    @Test
+    public void acknowledgedTwice_secondWritesNothing() {
+        long now = dueAt + 60_000;
+        long next = dao.acknowledgeReminder(reminderId, dueAt, false, now);
+        assertTrue(next > dueAt);
+
+        long again = dao.acknowledgeReminder(reminderId, dueAt, false, now + 1000);
+
+        assertEquals("the current due time is returned", next, again);
+        assertEquals("the reminder moved on once", next, dao.getReminderNow(reminderId).getDueAtEpochMillis());
+        assertEquals("one acknowledgement was recorded", 1,
+                dao.getAcknowledgementsBetween(medId, dueAt, Long.MAX_VALUE).blockingGet().size());
+    }
+
+    @Test
+    public void acknowledgedAtNextDueTime_movesOnAgain() {
+        long next = dao.acknowledgeReminder(reminderId, dueAt, false, dueAt + 60_000);
+        long after = dao.acknowledgeReminder(reminderId, next, true, next + 60_000);
+
+        assertTrue(after > next);
+        assertEquals(after, dao.getReminderNow(reminderId).getDueAtEpochMillis());
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import io.reactivex.Single;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 1000 queued medication inserts, made the way the repository used to make them (one task per
+ * write on a serial executor, each its own implicit transaction) and through DatabaseWriter.
+ * The database is on disk so every commit pays for its sync, as it does in the app.
+ * Results are logged under app-benchmark.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DatabaseWriterBenchmark {
+
+    private static final String TAG = "app-benchmark";
+    private static final String DB_NAME = "writer-benchmark";
+    private static final int WRITES = 1000;
+
+    private Context context;
+    private AppDatabase db;
+
+    @Before
+    public void openDatabase() {
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DB_NAME);
+        db = Room.databaseBuilder(context, AppDatabase.class, DB_NAME).build();
+    }
+
+    @After
+    public void closeDatabase() {
+        db.close();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void queuedWrites_oneTransactionPerWrite() throws InterruptedException {
+        DataAccessObject dao = db.dataAccessObject();
+        ExecutorService serial = Executors.newSingleThreadExecutor(); //what AsyncTask.SERIAL_EXECUTOR did
+        long started = SystemClock.elapsedRealtime();
+        for(int i = 0; i < WRITES; i++){
+            MedicationEntity m = medication(i);
+            serial.execute(() -> dao.insertMedication(m));
+        }
+        serial.shutdown();
+        assertTrue(serial.awaitTermination(5, TimeUnit.MINUTES));
+        long millis = SystemClock.elapsedRealtime() - started;
+
+        Log.i(TAG, "Per-write transactions: " + WRITES + " writes in " + millis + "ms, "
+                + WRITES + " transactions, " + perSecond(millis) + " writes/s");
+        assertEquals(WRITES, countMedications());
+    }
+
+    @Test
+    public void queuedWrites_databaseWriter() {
+        DatabaseWriter writer = new DatabaseWriter(db);
+        long started = SystemClock.elapsedRealtime();
+        Single<Long> last = null;
+        for(int i = 0; i < WRITES; i++){
+            MedicationEntity m = medication(i);
+            last = writer.submit(dao -> dao.insertMedication(m));
+        }
+        last.blockingGet(); //writes commit in the order they were queued
+        long millis = SystemClock.elapsedRealtime() - started;
+
+        Log.i(TAG, "DatabaseWriter: " + writer.getWriteCount() + " writes in " + millis + "ms, "
+                + writer.getTransactionCount() + " transactions, " + perSecond(millis) + " writes/s");
+        assertEquals(WRITES, writer.getWriteCount());
+        assertTrue(writer.getTransactionCount() < WRITES);
+    }
+
+    private int countMedications() {
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM MedicationTable", null)) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+
+    private static MedicationEntity medication(int i) {
+        return new MedicationEntity("Medication " + i, "10 mg", 1, "2021-03-01 08:00", "",
+                "8, 8, 8", "", "", "");
+    }
+
+    private static long perSecond(long millis) {
+        return millis == 0 ? WRITES : WRITES * 1000L / millis;
+    }
+}
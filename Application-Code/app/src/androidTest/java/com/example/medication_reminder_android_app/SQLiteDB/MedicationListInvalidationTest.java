@@ -0,0 +1,93 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import android.content.Context;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.paging.LivePagedListBuilder;
+import androidx.paging.PagedList;
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The paged medication list must not be reloaded by an acknowledgement, which writes
+ * ReminderTable, AcknowledgementTable, MedicationStateTable and DoseOccurrenceTable but no column
+ * the list shows. Counted with InvalidationCounter
+ */
+@RunWith(AndroidJUnit4.class)
+public class MedicationListInvalidationTest {
+
+    private static final String LIST = "medication-list-invalidation-test";
+    private static final long SETTLE_MILLIS = 1000; //invalidations are delivered asynchronously
+
+    private AppDatabase db;
+    private LiveData<PagedList<MedicationSummary>> list;
+    private Observer<PagedList<MedicationSummary>> observer;
+    private volatile CountDownLatch emitted = new CountDownLatch(1);
+
+    @Before
+    public void openDatabase() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class).build();
+        InvalidationCounter.register(db);
+        list = InvalidationCounter.countEmissions(LIST,
+                new LivePagedListBuilder<>(db.dataAccessObject().pageAllMeds(), 20).build());
+        observer = medications -> emitted.countDown();
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> list.observeForever(observer));
+    }
+
+    @After
+    public void closeDatabase() {
+        InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> list.removeObserver(observer));
+        db.close();
+    }
+
+    @Test
+    public void acknowledgement_doesNotReloadList() throws InterruptedException {
+        assertTrue(emitted.await(5, TimeUnit.SECONDS));
+
+        DataAccessObject dao = db.dataAccessObject();
+        long now = DateTimeCodec.parse("2021-03-01 08:00");
+        long[] reminderId = new long[1];
+        emitted = new CountDownLatch(1);
+        db.runInTransaction(() -> {
+            MedicationEntity m = new MedicationEntity("Ibuprofen", "200 mg", 1, "2021-03-01 08:00", "",
+                    "8, 8, 8", "", "", "");
+            long medId = dao.insertMedication(m);
+            ReminderEntity r = new ReminderEntity("M", "08:00", "2021-03-01", 0, medId);
+            r.setDueAtEpochMillis(now);
+            reminderId[0] = dao.insertReminder(r);
+            dao.insertMedicationState(new MedicationStateEntity(medId, reminderId[0], null));
+        });
+        assertTrue("inserting a medication reloads the list", emitted.await(5, TimeUnit.SECONDS));
+        Thread.sleep(SETTLE_MILLIS);
+
+        long emissionsBefore = count(InvalidationCounter.getEmissionCounts().get(LIST));
+        long reminderInvalidationsBefore = count(InvalidationCounter.getInvalidationCounts().get("ReminderTable"));
+
+        dao.acknowledgeReminder(reminderId[0], now, false, now + 60_000);
+        Thread.sleep(SETTLE_MILLIS);
+
+        assertTrue("the acknowledgement wrote ReminderTable",
+                count(InvalidationCounter.getInvalidationCounts().get("ReminderTable")) > reminderInvalidationsBefore);
+        assertEquals("the list was not reloaded", emissionsBefore,
+                count(InvalidationCounter.getEmissionCounts().get(LIST)));
+    }
+
+    private static long count(Long count) {
+        return count == null ? 0 : count;
+    }
+}
@@ -1,22 +1,19 @@
 package com.example.medication_reminder_android_app.FDADatabaseHandler;
 
+import android.content.Context;
 import android.util.Log;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
-
 //This class is the main class for the FDA Database component
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.net.URL;
-import java.net.URLConnection;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
 public class DataBaseHandler {
 
     private final int DEFAULT_NUM_RESULTS;
@@ -25,7 +22,10 @@ public class DataBaseHandler {
     private static final int SUBSTANCE_NAME_INDEX = 2;
     private static final int PURPOSE_INDEX = 3;
     private static final int WARNINGS_INDEX = 4;
-    private Map<Integer,String[]> latestResults;
+    private List<DrugLabel> latestResults;
+    private final OpenFdaClient client;
+    private final LabelCache cache; //null if every search goes to the network
+    private final LabelIndexDatabase index; //offline labels searched first, null if there is no context
 
 
     /**
@@ -46,62 +46,106 @@ public class DataBaseHandler {
      */
     public DataBaseHandler(int defaultNumResults) {
         DEFAULT_NUM_RESULTS = defaultNumResults;
+        client = OpenFdaClient.getInstance();
+        cache = null;
+        index = null;
+    }
+
+
+    /**
+     * Constructs a new DataBaseHandler whose lookups are answered from LabelCache where they can be
+     * @param defaultNumResults The default maximum number of results to get from the database
+     * @param context Any context, the cache is kept per application
+     */
+    public DataBaseHandler(int defaultNumResults, Context context) {
+        this(defaultNumResults, context, OpenFdaClient.getInstance());
+    }
+
+
+    /**
+     * Constructs a new DataBaseHandler that searches through the given client, e.g. one pointed
+     * at a local server
+     * @param defaultNumResults The default maximum number of results to get from the database
+     * @param context Any context, the cache is kept per application
+     * @param client The client searches that miss the cache are made with
+     */
+    public DataBaseHandler(int defaultNumResults, Context context, OpenFdaClient client) {
+        DEFAULT_NUM_RESULTS = defaultNumResults;
+        this.client = client;
+        cache = LabelCache.getInstance(context);
+        index = LabelIndexDatabase.getDatabase(context);
+    }
+
+
+    /**
+     * Looks a search up in the offline label index, then in the label cache, only going to OpenFDA
+     * if neither has it. Cached results past their time to live are returned and fetched again in
+     * the background
+     * @param parameter The value to search on
+     * @return Single that emits the matching labels, best match first, on an io thread. Errors
+     * with the IOException if the search had to go to OpenFDA and could not connect
+     */
+    public Single<List<DrugLabel>> lookupLabels(String parameter) {
+        Single<List<DrugLabel>> labels = cache == null
+                ? client.search(parameter, DEFAULT_NUM_RESULTS)
+                : cache.get(parameter, DEFAULT_NUM_RESULTS, client::search);
+        if(index != null) {
+            Single<List<DrugLabel>> remote = labels;
+            labels = Single.fromCallable(() -> index.findLabels(parameter, DEFAULT_NUM_RESULTS))
+                    .subscribeOn(Schedulers.io())
+                    .flatMap(local -> local.isEmpty() ? remote : Single.just(local));
+        }
+        return labels.doOnSuccess(l -> latestResults = l);
     }
 
 
     /**
      * Searches the OpenFDA database with a given search parameter.
      * @param parameter The value to search on
-     * @return A map containing the results
+     * @return A map containing the results, keyed by position. Each value is ordered as SearchParameters
      * @throws IOException if there is a problem connecting to the database.
      */
     public Map<Integer,String[]> searchOpenFDA(String parameter) throws IOException {
-        Map<Integer,String[]> map = new HashMap<>();
-
-        String sURL = "https://api.fda.gov/drug/label.json?search="
-                +"(openfda.generic_name:\""+parameter+"\")"
-                +"+(openfda.brand_name:\""+parameter+"\")"
-                +"+(openfda.substance_name:\""+parameter+"\")"
-                +"&limit=" + DEFAULT_NUM_RESULTS; //just a string
-
-        // Connect to the URL using java's native library
-        URL url = new URL(sURL);
-        URLConnection request = url.openConnection();
-        request.connect();
-
-        // Convert to a JSON object to print data
-        JsonElement root = JsonParser.parseReader(new InputStreamReader((InputStream) request.getContent())); //Convert the input stream to a json element
-        JsonObject rootObject = root.getAsJsonObject(); //May be an array, may be an object.
-        JsonArray results = rootObject.get("results").getAsJsonArray();
-        int numRes = results.size();
+        List<DrugLabel> labels = searchLabels(parameter);
         Map<Integer,String[]> resMap = new HashMap<>();
-        String brand; //brand_name
-        String generic; //generic_name
-        String substance; //active_ingredient
-        String purpose;
-        String warnings;
-
-        for(int i = 0; i < numRes; i++) {
-            String[] cur = new String[5];
-            JsonObject curObj = results.get(i).getAsJsonObject();
-            JsonObject curOpenFDA = curObj.get("openfda").getAsJsonObject();
-            brand = curOpenFDA.get("brand_name").getAsString();
-            generic = curOpenFDA.get("generic_name").getAsString();
-            substance = curOpenFDA.get("substance_name").getAsString();
-            purpose = curObj.get("purpose").getAsString();
-            warnings = curObj.get("warnings").getAsString();
-            cur[BRAND_NAME_INDEX] = brand;
-            cur[GENERIC_NAME_INDEX] = generic;
-            cur[SUBSTANCE_NAME_INDEX] = substance;
-            cur[PURPOSE_INDEX] = purpose;
-            cur[WARNINGS_INDEX] = warnings;
-            resMap.put(i, cur);
+        for(int i = 0; i < labels.size(); i++) {
+            resMap.put(i, labels.get(i).toArray());
         }
-        latestResults = resMap;
         return resMap;
     }
 
 
+    /**
+     * Searches the OpenFDA database with a given search parameter.
+     * The response is read as a stream and only the fields in DrugLabel are kept, see DrugLabelParser.
+     * Blocks, and counts against the same rate limit as every other search, see OpenFdaClient.
+     * The offline label index and then the label cache are searched first if there are ones,
+     * the same as lookupLabels
+     * @param parameter The value to search on
+     * @return The matching labels, best match first
+     * @throws IOException if there is a problem connecting to the database.
+     */
+    public List<DrugLabel> searchLabels(String parameter) throws IOException {
+        List<DrugLabel> labels = index == null ? new ArrayList<>() : index.findLabels(parameter, DEFAULT_NUM_RESULTS);
+        if(labels.isEmpty()) {
+            labels = cache == null ? client.searchNow(parameter, DEFAULT_NUM_RESULTS) : searchCached(parameter);
+        }
+        latestResults = labels;
+        return labels;
+    }
+
+
+    //blocks on the label cache; a fetch that could not connect comes out of blockingGet wrapped
+    private List<DrugLabel> searchCached(String parameter) throws IOException {
+        try {
+            return cache.get(parameter, DEFAULT_NUM_RESULTS, client::search).blockingGet();
+        } catch(RuntimeException e) {
+            if(e.getCause() instanceof IOException) throw (IOException) e.getCause();
+            throw e;
+        }
+    }
+
+
     /**
      * Gets specific data from a database request
      * @param parameter The value to search on
@@ -130,7 +174,8 @@ public class DataBaseHandler {
      * @return A string array of the information
      */
     public String[] getFullResultByMapKeyFromLatestNamesSearch(int key) {
-        return latestResults.get(key);
+        if(latestResults == null || key < 0 || key >= latestResults.size()) return null;
+        return latestResults.get(key).toArray();
     }
 
 }
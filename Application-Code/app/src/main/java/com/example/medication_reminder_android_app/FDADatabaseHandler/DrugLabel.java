@@ -0,0 +1,39 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+/**
+ * The fields of an openFDA drug label that the app uses. Any of them may be null if the label
+ * does not have it.
+ */
+public final class DrugLabel {
+
+    private final String brandName;
+    private final String genericName;
+    private final String substanceName;
+    private final String purpose;
+    private final String warnings;
+
+    public DrugLabel(String brandName, String genericName, String substanceName, String purpose, String warnings) {
+        this.brandName = brandName;
+        this.genericName = genericName;
+        this.substanceName = substanceName;
+        this.purpose = purpose;
+        this.warnings = warnings;
+    }
+
+    public String getBrandName() { return brandName; }
+
+    public String getGenericName() { return genericName; }
+
+    public String getSubstanceName() { return substanceName; }
+
+    public String getPurpose() { return purpose; }
+
+    public String getWarnings() { return warnings; }
+
+    /**
+     * @return the fields in the order of DataBaseHandler.SearchParameters
+     */
+    public String[] toArray() {
+        return new String[]{brandName, genericName, substanceName, purpose, warnings};
+    }
+}
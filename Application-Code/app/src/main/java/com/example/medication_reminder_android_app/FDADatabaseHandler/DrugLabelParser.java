@@ -0,0 +1,137 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads openFDA drug label responses a token at a time.
+ *
+ * Label documents are large and only five of their fields are used, so rather than building the
+ * whole JSON tree the reader walks the response once, keeps those fields and skips every other
+ * subtree without materializing it. Memory use is bounded by the labels kept, not by the size of
+ * the response. Missing fields come back as null.
+ */
+public final class DrugLabelParser {
+
+    private DrugLabelParser() {}
+
+    /**
+     * Parse a response from the drug/label endpoint
+     * @param in the response body, closed when done
+     * @return the labels in the "results" array, in order. Empty if there is none
+     * @throws IOException if the body cannot be read or is not JSON
+     */
+    public static List<DrugLabel> parse(Reader in) throws IOException {
+        List<DrugLabel> labels = new ArrayList<>();
+        try (JsonReader reader = new JsonReader(in)) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (reader.nextName().equals("results") && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        labels.add(readLabel(reader));
+                    }
+                    reader.endArray();
+                } else {
+                    reader.skipValue(); //meta, or error when nothing matched
+                }
+            }
+            reader.endObject();
+        }
+        return labels;
+    }
+
+    /**
+     * Read one label object, the reader must be positioned at it
+     * @param reader
+     * @return
+     * @throws IOException
+     */
+    static DrugLabel readLabel(JsonReader reader) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return new DrugLabel(null, null, null, null, null);
+        }
+        String brand = null;
+        String generic = null;
+        String substance = null;
+        String purpose = null;
+        String warnings = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "openfda":
+                    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.beginObject();
+                    while (reader.hasNext()) {
+                        switch (reader.nextName()) {
+                            case "brand_name":
+                                brand = readText(reader, ", ");
+                                break;
+                            case "generic_name":
+                                generic = readText(reader, ", ");
+                                break;
+                            case "substance_name":
+                                substance = readText(reader, ", ");
+                                break;
+                            default:
+                                reader.skipValue();
+                        }
+                    }
+                    reader.endObject();
+                    break;
+                case "purpose":
+                    purpose = readText(reader, "\n");
+                    break;
+                case "warnings":
+                    warnings = readText(reader, "\n");
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return new DrugLabel(brand, generic, substance, purpose, warnings);
+    }
+
+    /*
+    openFDA gives most fields as arrays of strings. Reads a string, or the strings of an array
+    joined with separator. Anything else is skipped and read as null
+     */
+    private static String readText(JsonReader reader, String separator) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BEGIN_ARRAY:
+                StringBuilder text = null;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    JsonToken token = reader.peek();
+                    if (token == JsonToken.STRING || token == JsonToken.NUMBER) {
+                        String value = reader.nextString();
+                        if (text == null) {
+                            text = new StringBuilder(value);
+                        } else {
+                            text.append(separator).append(value);
+                        }
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endArray();
+                return text == null ? null : text.toString();
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import android.app.Application;
+import android.content.Context;
+import android.util.Log;
+import android.util.LruCache;
+
+import com.example.medication_reminder_android_app.SQLiteDB.DatabaseRepository;
+import com.example.medication_reminder_android_app.SQLiteDB.FdaLabelCacheEntity;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Two tiers of openFDA search results in front of the network: an in-memory LRU for the searches
+ * used this session, and FdaLabelCache in the app database so a search that was made once can be
+ * answered again with no connection.
+ *
+ * A search is cached per result limit as well as per text, so a search for 1 result is never
+ * answered with the results of a search for 100, or the other way round.
+ *
+ * Results older than the time to live are still returned straight away, and fetched again in the
+ * background so the next lookup sees the new ones (stale-while-revalidate). Only a search that has
+ * never been made waits for the network. Label text changes rarely, so a label that is a few days
+ * old is still worth showing, and showing it is better than nothing when offline.
+ *
+ * The table is pruned whenever a search is stored: searches fetched more than MAX_AGE_TTLS times
+ * the time to live ago are dropped, and past MAX_STORED searches the least recently fetched go.
+ * A search left that long has not been looked up since, a looked up one is fetched again.
+ */
+public final class LabelCache {
+
+    public static final long DEFAULT_TTL_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+
+    private static final String TAG = "app-fda-cache";
+    private static final int MEMORY_ENTRIES = 32;
+    private static final int MAX_STORED = 500;
+    private static final int MAX_AGE_TTLS = 4; //stale results are kept this many times the ttl for offline use
+    private static final Type LABEL_LIST = new TypeToken<List<DrugLabel>>(){}.getType();
+
+    private static volatile LabelCache INSTANCE;
+
+    private final DatabaseRepository repository;
+    private final LruCache<String, Cached> memory = new LruCache<>(MEMORY_ENTRIES);
+    private final Set<String> revalidating = Collections.synchronizedSet(new HashSet<>()); //keys being fetched again
+    private final Gson gson = new Gson();
+    private volatile long ttlMillis = DEFAULT_TTL_MILLIS;
+
+    /**
+     * How a search is made on a miss or a revalidation, see OpenFdaClient.search
+     */
+    interface Fetcher {
+        Single<List<DrugLabel>> fetch(String query, int limit);
+    }
+
+    private LabelCache(Application application){
+        repository = DatabaseRepository.getInstance(application);
+    }
+
+    /**
+     * The cache is shared by every DataBaseHandler in the process
+     * @param context
+     * @return
+     */
+    public static LabelCache getInstance(Context context){
+        if(INSTANCE == null){
+            synchronized (LabelCache.class){
+                if(INSTANCE == null){
+                    INSTANCE = new LabelCache((Application) context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Set how long results are used before they are fetched again
+     * @param millis
+     */
+    public void setTimeToLive(long millis){
+        if(millis < 0) throw new IllegalArgumentException("Time to live must not be negative: " + millis);
+        ttlMillis = millis;
+    }
+
+    public long getTimeToLive(){ return ttlMillis; }
+
+    /**
+     * Drop the results of a search from memory, so the next lookup reads them from the database
+     * @param query
+     * @param limit the result limit the search was made with
+     */
+    public void evict(String query, int limit){
+        memory.remove(key(normalize(query), limit));
+    }
+
+    /**
+     * Look up a search in memory, then the database, then with fetcher
+     * @param query search text, compared after normalize
+     * @param limit most results the search returns, part of what it is cached under
+     * @param fetcher makes the search when it has never been cached, or the cached results are stale
+     * @return Single that emits the results, on an io thread
+     */
+    Single<List<DrugLabel>> get(String query, int limit, Fetcher fetcher){
+        String normalized = normalize(query);
+        String key = key(normalized, limit);
+        return Single.defer(() -> {
+            Cached cached = memory.get(key);
+            if(cached != null){
+                return Single.just(serve(key, normalized, limit, cached, fetcher));
+            }
+            return repository.getFdaLabelCache(key)
+                    .map(entry -> {
+                        Cached stored = new Cached(gson.fromJson(entry.getLabels(), LABEL_LIST), entry.getFetchedAt());
+                        memory.put(key, stored);
+                        return serve(key, normalized, limit, stored, fetcher);
+                    })
+                    .switchIfEmpty(fetchAndStore(key, normalized, limit, fetcher));
+        }).subscribeOn(Schedulers.io());
+    }
+
+    /**
+     * The form a search is cached under: trimmed, lower case and with runs of spaces collapsed,
+     * openFDA does not tell those apart
+     * @param query
+     * @return
+     */
+    static String normalize(String query){
+        return query.trim().toLowerCase(Locale.US).replaceAll("\\s+", " ");
+    }
+
+    /**
+     * What a search is cached under, in memory and in FdaLabelCache
+     * @param normalized search text after normalize
+     * @param limit
+     * @return
+     */
+    static String key(String normalized, int limit){
+        return limit + ":" + normalized;
+    }
+
+    //returns the cached labels, starting a fetch in the background if they are stale
+    private List<DrugLabel> serve(String key, String query, int limit, Cached cached, Fetcher fetcher){
+        if(System.currentTimeMillis() - cached.fetchedAt > ttlMillis && revalidating.add(key)){
+            fetchAndStore(key, query, limit, fetcher)
+                    .doFinally(() -> revalidating.remove(key))
+                    .subscribe(labels -> Log.d(TAG, "Revalidated \"" + key + "\""),
+                            e -> Log.d(TAG, "Could not revalidate \"" + key + "\", keeping the stale results", e));
+        }
+        return cached.labels;
+    }
+
+    private Single<List<DrugLabel>> fetchAndStore(String key, String query, int limit, Fetcher fetcher){
+        return fetcher.fetch(query, limit).doOnSuccess(labels -> {
+            long now = System.currentTimeMillis();
+            memory.put(key, new Cached(labels, now));
+            repository.putFdaLabelCache(new FdaLabelCacheEntity(key, now, gson.toJson(labels, LABEL_LIST)),
+                    now - MAX_AGE_TTLS * ttlMillis, MAX_STORED)
+                    .subscribe(() -> {}, e -> Log.d(TAG, "Could not store \"" + key + "\"", e));
+        });
+    }
+
+    private static final class Cached {
+        final List<DrugLabel> labels;
+        final long fetchedAt; //epoch millis
+
+        Cached(List<DrugLabel> labels, long fetchedAt){
+            this.labels = Collections.unmodifiableList(labels);
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import android.app.Application;
+import android.content.Context;
+import android.util.Log;
+
+import com.example.medication_reminder_android_app.SQLiteDB.DatabaseRepository;
+import com.example.medication_reminder_android_app.SQLiteDB.MedicationEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Fills in the warnings, ingredients and purpose of saved medications from their FDA labels, in
+ * the background.
+ *
+ * Medications are saved with those fields empty. A pass collects the medications whose label has
+ * not been looked up (fda_checked_at is 0), searches for up to NAMES_PER_REQUEST distinct names in
+ * each openFDA call by OR'ing their terms together, matches the labels that come back to the names
+ * and writes every medication found back in one transaction. The number of calls grows with the
+ * number of distinct names divided by NAMES_PER_REQUEST, not with the number of medications.
+ *
+ * Runs are requested after a medication is saved and when the main screen is opened, and never
+ * hold up either. A medication whose lookup failed, e.g. offline, is left for the next run.
+ */
+public final class LabelEnricher {
+
+    static final int NAMES_PER_REQUEST = 8;
+
+    private static final String TAG = "app-fda-enrich";
+    private static final int RESULTS_PER_REQUEST = 100;
+    private static final int MEDICATIONS_PER_PASS = 64;
+
+    private static volatile LabelEnricher INSTANCE;
+
+    private final DatabaseRepository repository;
+    private final OpenFdaClient client;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicBoolean requested = new AtomicBoolean(false); //a run was asked for since the pass started
+
+    private LabelEnricher(Application application){
+        repository = DatabaseRepository.getInstance(application);
+        client = OpenFdaClient.getInstance();
+    }
+
+    public static LabelEnricher getInstance(Context context){
+        if(INSTANCE == null){
+            synchronized (LabelEnricher.class){
+                if(INSTANCE == null){
+                    INSTANCE = new LabelEnricher((Application) context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Look up the labels of every medication that needs one. Returns straight away; if a run is
+     * already going another pass follows it, so medications saved meanwhile are picked up
+     */
+    public void requestRun(){
+        requested.set(true);
+        if(running.compareAndSet(false, true)){
+            pass();
+        }
+    }
+
+    private void pass(){
+        requested.set(false);
+        repository.getUnenrichedMedications(MEDICATIONS_PER_PASS)
+                .subscribeOn(Schedulers.io())
+                .flatMap(medications -> enrich(medications)
+                        //a full pass that wrote everything it read may have left more behind
+                        .map(written -> medications.size() == MEDICATIONS_PER_PASS && written == medications.size()))
+                .subscribe(this::finished, e -> {
+                    Log.d(TAG, "Could not enrich medications", e);
+                    finished(false);
+                });
+    }
+
+    private void finished(boolean more){
+        running.set(false);
+        if((more || requested.get()) && running.compareAndSet(false, true)){
+            pass();
+        }
+    }
+
+    //searches for every name in batches and writes back what was found, emits how many medications were written
+    private Single<Integer> enrich(List<MedicationEntity> medications){
+        if(medications.isEmpty()) return Single.just(0);
+        Map<String, List<MedicationEntity>> byName = new LinkedHashMap<>();
+        for(MedicationEntity m : medications){
+            String name = normalize(m.getMedName());
+            List<MedicationEntity> same = byName.get(name);
+            if(same == null){
+                same = new ArrayList<>();
+                byName.put(name, same);
+            }
+            same.add(m);
+        }
+        List<String> names = new ArrayList<>(byName.keySet());
+        List<Single<List<MedicationEntity>>> requests = new ArrayList<>();
+        for(int i = 0; i < names.size(); i += NAMES_PER_REQUEST){
+            List<String> batch = names.subList(i, Math.min(i + NAMES_PER_REQUEST, names.size()));
+            requests.add(client.searchAnyName(batch, RESULTS_PER_REQUEST)
+                    .map(labels -> resolve(batch, labels, byName, System.currentTimeMillis()))
+                    .onErrorReturn(e -> {
+                        Log.d(TAG, "Could not look up " + batch + ", trying again next run", e);
+                        return Collections.emptyList();
+                    }));
+        }
+        return Single.merge(requests)
+                .flatMapIterable(resolved -> resolved)
+                .toList()
+                .flatMap(found -> {
+                    Log.d(TAG, "Enriched " + found.size() + " of " + medications.size() + " medications in "
+                            + requests.size() + " requests");
+                    return found.isEmpty() ? Single.just(0)
+                            : repository.setFdaLabels(found).toSingleDefault(found.size());
+                });
+    }
+
+    /*
+    Gives each name in batch the first label with that brand, generic or substance name. A name no
+    label has is only marked as looked up if every result for the batch came back, otherwise its
+    label may have been cut off by the limit and it is searched again next run
+     */
+    private static List<MedicationEntity> resolve(List<String> batch, List<DrugLabel> labels,
+                                                  Map<String, List<MedicationEntity>> byName, long now){
+        boolean complete = labels.size() < RESULTS_PER_REQUEST || batch.size() == 1;
+        List<MedicationEntity> resolved = new ArrayList<>();
+        for(String name : batch){
+            DrugLabel label = find(name, labels);
+            if(label == null && !complete) continue;
+            for(MedicationEntity m : byName.get(name)){
+                if(label != null){
+                    if(label.getWarnings() != null) m.setWarnings(label.getWarnings());
+                    if(label.getSubstanceName() != null) m.setIngredients(label.getSubstanceName());
+                    m.setPurpose(label.getPurpose());
+                }
+                m.setFdaCheckedAt(now);
+                resolved.add(m);
+            }
+        }
+        return resolved;
+    }
+
+    private static DrugLabel find(String name, List<DrugLabel> labels){
+        for(DrugLabel label : labels){
+            if(hasName(label.getBrandName(), name) || hasName(label.getGenericName(), name)
+                    || hasName(label.getSubstanceName(), name)){
+                return label;
+            }
+        }
+        return null;
+    }
+
+    //names are joined with ", " by DrugLabelParser
+    private static boolean hasName(String names, String name){
+        if(names == null) return false;
+        for(String candidate : names.split(",")){
+            if(normalize(candidate).equals(name)) return true;
+        }
+        return false;
+    }
+
+    private static String normalize(String name){
+        return name.trim().toLowerCase(Locale.US).replaceAll("\\s+", " ");
+    }
+}
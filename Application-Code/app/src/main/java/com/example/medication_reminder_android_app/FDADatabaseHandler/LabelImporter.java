@@ -0,0 +1,306 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.BufferedInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Builds the offline label index from an openFDA drug label bulk download. openFDA splits it into
+ * drug-label-NNNN-of-NNNN.json.zip parts, and an import takes any number of them, zipped or the
+ * .json inside, so the whole download goes in at once.
+ *
+ * Each part is read as a stream: labels are parsed one at a time with DrugLabelParser.readLabel
+ * and written BATCH_SIZE at a time, each batch in one transaction, so memory use is one batch
+ * however large the download is. Batches go into staging tables next to the index, which keeps
+ * answering lookups meanwhile. Only once every part has been read are the staged labels swapped
+ * in, in one transaction, replacing whatever was there. If any part fails the staging tables are
+ * dropped and the index is left as it was.
+ */
+public final class LabelImporter {
+
+    private static final String TAG = "app-fda-import";
+    private static final int BATCH_SIZE = 500;
+    //same columns as Label and LabelName, without their keys; ids are given out by the import
+    private static final String STAGED_LABELS = "LabelStaging";
+    private static final String STAGED_NAMES = "LabelNameStaging";
+
+    private final Context context;
+    private final LabelIndexDatabase db;
+    private final LabelIndexDao dao;
+
+    //the import in progress; one at a time, they share the staging tables
+    private SupportSQLiteStatement insertLabel;
+    private SupportSQLiteStatement insertName;
+    private long nextId;
+
+    /**
+     * One file of a download, opened when the import reaches it
+     */
+    public interface Part {
+        /**
+         * @return the .json or .json.zip file, closed by the import
+         * @throws IOException
+         */
+        InputStream open() throws IOException;
+    }
+
+    public LabelImporter(Context context){
+        this.context = context.getApplicationContext();
+        this.db = LabelIndexDatabase.getDatabase(context);
+        this.dao = db.labelIndexDao();
+    }
+
+    /**
+     * Import a download that is a single file
+     * @param in the .json or .json.zip file, closed when done
+     * @return Single that emits how the import went once it is done, on an io thread
+     */
+    public Single<Report> importFrom(InputStream in){
+        return importFrom(Collections.<Part>singletonList(() -> in));
+    }
+
+    /**
+     * Import every part of a download, replacing the index only if all of them are read
+     * @param parts the .json or .json.zip files, read in order
+     * @return Single that emits how the import went once it is done, on an io thread
+     */
+    public Single<Report> importFrom(List<? extends Part> parts){
+        return Single.fromCallable(() -> importNow(parts)).subscribeOn(Schedulers.io());
+    }
+
+    private Report importNow(List<? extends Part> parts) throws IOException {
+        synchronized (LabelImporter.class) {
+            long started = SystemClock.elapsedRealtime();
+            SupportSQLiteDatabase sql = db.getOpenHelper().getWritableDatabase();
+            int imported = 0;
+            long sourceBytes = 0;
+            createStaging(sql);
+            try {
+                for(Part part : parts){
+                    CountingInputStream counted = new CountingInputStream(part.open());
+                    try (BufferedInputStream in = new BufferedInputStream(counted)) {
+                        imported += importPart(in);
+                    }
+                    sourceBytes += counted.count;
+                }
+                db.runInTransaction(() -> {
+                    dao.deleteAllNames();
+                    dao.deleteAllLabels();
+                    sql.execSQL("INSERT INTO Label SELECT * FROM " + STAGED_LABELS);
+                    sql.execSQL("INSERT INTO LabelName SELECT * FROM " + STAGED_NAMES);
+                    dropStaging(sql);
+                });
+            } catch(IOException | RuntimeException e) {
+                dropStaging(sql);
+                throw e;
+            } finally {
+                insertLabel = null;
+                insertName = null;
+            }
+            sql.execSQL("VACUUM"); //give back the pages the staged copy and the old index took
+            Report report = new Report(imported, parts.size(), SystemClock.elapsedRealtime() - started,
+                    sourceBytes, LabelIndexDatabase.sizeOnDisk(context));
+            Log.d(TAG, report.toString());
+            return report;
+        }
+    }
+
+    //left over tables from an import the process died during are dropped first
+    private void createStaging(SupportSQLiteDatabase sql){
+        dropStaging(sql);
+        sql.execSQL("CREATE TABLE " + STAGED_LABELS + " AS SELECT * FROM Label WHERE 0");
+        sql.execSQL("CREATE TABLE " + STAGED_NAMES + " AS SELECT * FROM LabelName WHERE 0");
+        insertLabel = sql.compileStatement("INSERT INTO " + STAGED_LABELS
+                + " (id, brand_name, generic_name, substance_name, purpose, warnings) VALUES (?, ?, ?, ?, ?, ?)");
+        insertName = sql.compileStatement("INSERT INTO " + STAGED_NAMES + " (name, label_id) VALUES (?, ?)");
+        nextId = 1;
+    }
+
+    private static void dropStaging(SupportSQLiteDatabase sql){
+        sql.execSQL("DROP TABLE IF EXISTS " + STAGED_LABELS);
+        sql.execSQL("DROP TABLE IF EXISTS " + STAGED_NAMES);
+    }
+
+    //a zip is read entry by entry, every .json in it is a results file
+    private int importPart(BufferedInputStream in) throws IOException {
+        if(!isZip(in)) return importResults(in);
+        int imported = 0;
+        ZipInputStream zip = new ZipInputStream(in);
+        ZipEntry entry;
+        while((entry = zip.getNextEntry()) != null){
+            if(!entry.isDirectory() && entry.getName().endsWith(".json")){
+                imported += importResults(zip);
+            }
+        }
+        return imported;
+    }
+
+    /*
+    Walks {"meta": ..., "results": [label, ...]} writing labels as they are read. The stream is
+    not closed, a zip has more entries after it
+     */
+    private int importResults(InputStream in) throws IOException {
+        JsonReader reader = new JsonReader(new InputStreamReader(in, "UTF-8"));
+        List<DrugLabel> batch = new ArrayList<>(BATCH_SIZE);
+        int imported = 0;
+        reader.beginObject();
+        while(reader.hasNext()){
+            if(reader.nextName().equals("results") && reader.peek() == JsonToken.BEGIN_ARRAY){
+                reader.beginArray();
+                while(reader.hasNext()){
+                    batch.add(DrugLabelParser.readLabel(reader));
+                    if(batch.size() == BATCH_SIZE){
+                        imported += write(batch);
+                        batch.clear();
+                    }
+                }
+                reader.endArray();
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        if(!batch.isEmpty()) imported += write(batch);
+        return imported;
+    }
+
+    //one transaction for the staged labels and every name they can be found by
+    private int write(List<DrugLabel> batch){
+        db.runInTransaction(() -> {
+            for(DrugLabel label : batch){
+                long id = nextId++;
+                insertLabel.bindLong(1, id);
+                bind(insertLabel, 2, label.getBrandName());
+                bind(insertLabel, 3, label.getGenericName());
+                bind(insertLabel, 4, label.getSubstanceName());
+                bind(insertLabel, 5, label.getPurpose());
+                bind(insertLabel, 6, label.getWarnings());
+                insertLabel.executeInsert();
+                for(String name : namesOf(label)){
+                    insertName.bindString(1, name);
+                    insertName.bindLong(2, id);
+                    insertName.executeInsert();
+                }
+            }
+        });
+        return batch.size();
+    }
+
+    private static void bind(SupportSQLiteStatement statement, int index, String value){
+        if(value == null){
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    //names are joined with ", " by DrugLabelParser
+    private static Set<String> namesOf(DrugLabel label){
+        Set<String> names = new LinkedHashSet<>();
+        for(String joined : new String[]{label.getBrandName(), label.getGenericName(), label.getSubstanceName()}){
+            if(joined == null) continue;
+            for(String name : joined.split(",")){
+                String normalized = LabelCache.normalize(name);
+                if(!normalized.isEmpty()) names.add(normalized);
+            }
+        }
+        return names;
+    }
+
+    //zip files start with "PK"
+    private static boolean isZip(BufferedInputStream in) throws IOException {
+        in.mark(2);
+        boolean zip = in.read() == 'P' && in.read() == 'K';
+        in.reset();
+        return zip;
+    }
+
+    /**
+     * How an import went
+     */
+    public static final class Report {
+        private final int labels;
+        private final int parts;
+        private final long millis;
+        private final long sourceBytes;
+        private final long indexBytes;
+
+        Report(int labels, int parts, long millis, long sourceBytes, long indexBytes){
+            this.labels = labels;
+            this.parts = parts;
+            this.millis = millis;
+            this.sourceBytes = sourceBytes;
+            this.indexBytes = indexBytes;
+        }
+
+        public int getLabels() { return labels; }
+
+        /** files the labels were read from */
+        public int getParts() { return parts; }
+
+        public long getMillis() { return millis; }
+
+        public double getLabelsPerSecond() { return millis == 0 ? labels : labels * 1000.0 / millis; }
+
+        /** bytes read from every part of the download, compressed if they were zips */
+        public long getSourceBytes() { return sourceBytes; }
+
+        /** bytes the index takes on disk afterwards */
+        public long getIndexBytes() { return indexBytes; }
+
+        @Override
+        public String toString(){
+            return "Imported " + labels + " labels from " + parts + " files in " + millis + "ms (" + Math.round(getLabelsPerSecond())
+                    + " labels/s), read " + sourceBytes + " bytes, index is " + indexBytes + " bytes";
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in){ super(in); }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if(b != -1) count++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if(n > 0) count += n;
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
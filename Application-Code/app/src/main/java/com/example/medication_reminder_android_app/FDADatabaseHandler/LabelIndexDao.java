@@ -0,0 +1,32 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Queries on the offline label index. Every method is synchronous, callers are on a background
+ * thread already. Labels are written by LabelImporter, through staging tables Room does not know of
+ */
+@Dao
+public interface LabelIndexDao {
+
+    /**
+     * @param name normalized, see LabelCache.normalize
+     * @param limit
+     * @return labels with that brand, generic or substance name, in the order they were imported
+     */
+    @Query("SELECT Label.* FROM LabelName JOIN Label ON Label.id = LabelName.label_id "
+            + "WHERE LabelName.name = :name ORDER BY Label.id LIMIT :limit")
+    public List<LabelIndexEntity> findByName(String name, int limit);
+
+    @Query("SELECT COUNT(*) FROM Label")
+    public int countLabels();
+
+    @Query("DELETE FROM LabelName")
+    public void deleteAllNames();
+
+    @Query("DELETE FROM Label")
+    public void deleteAllLabels();
+}
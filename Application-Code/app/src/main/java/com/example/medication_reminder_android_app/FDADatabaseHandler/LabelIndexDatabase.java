@@ -0,0 +1,64 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The offline label index: drug labels imported from an openFDA bulk download, see LabelImporter,
+ * searchable by name with no connection. Kept apart from AppDatabase since it is large, is
+ * replaced wholesale on each import and holds nothing the user entered
+ */
+@Database(entities = {LabelIndexEntity.class, LabelNameEntity.class}, version = 1, exportSchema = false)
+public abstract class LabelIndexDatabase extends RoomDatabase {
+
+    static final String NAME = "fda_label_index";
+
+    public abstract LabelIndexDao labelIndexDao();
+
+    private static volatile LabelIndexDatabase INSTANCE;
+
+    public static LabelIndexDatabase getDatabase(final Context context){
+        if(INSTANCE == null){
+            synchronized (LabelIndexDatabase.class){
+                if(INSTANCE == null){
+                    INSTANCE = Room.databaseBuilder(context.getApplicationContext(), LabelIndexDatabase.class, NAME)
+                            .fallbackToDestructiveMigration() //the index can always be imported again
+                            .build();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Look a name up in the index. Blocks
+     * @param name as the user typed it
+     * @param limit
+     * @return labels with that brand, generic or substance name, empty if there are none or
+     * nothing has been imported
+     */
+    public List<DrugLabel> findLabels(String name, int limit){
+        List<DrugLabel> labels = new ArrayList<>();
+        for(LabelIndexEntity entity : labelIndexDao().findByName(LabelCache.normalize(name), limit)){
+            labels.add(entity.toDrugLabel());
+        }
+        return labels;
+    }
+
+    /**
+     * @param context
+     * @return bytes the index takes on disk, including its write-ahead log
+     */
+    public static long sizeOnDisk(Context context){
+        File file = context.getDatabasePath(NAME);
+        File wal = new File(file.getPath() + "-wal");
+        return file.length() + wal.length();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * One drug label in the offline label index, with the fields DrugLabel keeps
+ */
+@Entity(tableName = "Label")
+public class LabelIndexEntity {
+    @PrimaryKey(autoGenerate = true)
+    private long id;
+
+    @ColumnInfo(name = "brand_name")
+    private String brandName;
+
+    @ColumnInfo(name = "generic_name")
+    private String genericName;
+
+    @ColumnInfo(name = "substance_name")
+    private String substanceName;
+
+    @ColumnInfo(name = "purpose")
+    private String purpose;
+
+    @ColumnInfo(name = "warnings")
+    private String warnings;
+
+    public LabelIndexEntity(String brandName, String genericName, String substanceName, String purpose, String warnings){
+        this.brandName = brandName;
+        this.genericName = genericName;
+        this.substanceName = substanceName;
+        this.purpose = purpose;
+        this.warnings = warnings;
+    }
+
+    DrugLabel toDrugLabel(){
+        return new DrugLabel(brandName, genericName, substanceName, purpose, warnings);
+    }
+
+    //getters
+    public long getId() { return this.id; }
+
+    public String getBrandName() { return this.brandName; }
+
+    public String getGenericName() { return this.genericName; }
+
+    public String getSubstanceName() { return this.substanceName; }
+
+    public String getPurpose() { return this.purpose; }
+
+    public String getWarnings() { return this.warnings; }
+
+    //setters
+    public void setId(long id) { this.id = id; }
+
+    public void setBrandName(String brandName) { this.brandName = brandName; }
+
+    public void setGenericName(String genericName) { this.genericName = genericName; }
+
+    public void setSubstanceName(String substanceName) { this.substanceName = substanceName; }
+
+    public void setPurpose(String purpose) { this.purpose = purpose; }
+
+    public void setWarnings(String warnings) { this.warnings = warnings; }
+}
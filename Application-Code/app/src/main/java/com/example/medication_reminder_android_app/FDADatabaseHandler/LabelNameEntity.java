@@ -0,0 +1,34 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+
+/**
+ * A brand, generic or substance name of a label in the offline label index, normalized as
+ * LabelCache.normalize does. The primary key leads with the name, so it is also the index
+ * lookups by name use
+ */
+@Entity(tableName = "LabelName", primaryKeys = {"name", "label_id"})
+public class LabelNameEntity {
+    @NonNull
+    @ColumnInfo(name = "name")
+    private String name;
+
+    @ColumnInfo(name = "label_id")
+    private long labelId;
+
+    public LabelNameEntity(@NonNull String name, long labelId){
+        this.name = name;
+        this.labelId = labelId;
+    }
+
+    @NonNull
+    public String getName() { return this.name; }
+
+    public long getLabelId() { return this.labelId; }
+
+    public void setName(@NonNull String name) { this.name = name; }
+
+    public void setLabelId(long labelId) { this.labelId = labelId; }
+}
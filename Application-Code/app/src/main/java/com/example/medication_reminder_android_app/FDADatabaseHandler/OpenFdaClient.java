@@ -0,0 +1,251 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Makes drug label searches against openFDA, or against any server that answers the same
+ * /drug/label.json requests, such as a local server replaying recorded responses.
+ *
+ * Identical searches made while one is already in flight share its HTTP call and its result
+ * instead of making their own. Every call takes a token from a token bucket first, so a burst of
+ * searches is spread out under openFDA's per minute quota rather than being refused by it; at most
+ * maxQueued calls wait for a token and any more fail straight away. Responses are requested gzipped
+ * and read to the end so HttpURLConnection can keep the connection alive for the next call.
+ */
+public final class OpenFdaClient {
+
+    public static final String DEFAULT_BASE_URL = "https://api.fda.gov";
+    public static final int DEFAULT_REQUESTS_PER_MINUTE = 240; //openFDA's quota without an api key
+    public static final int DEFAULT_BURST = 4;
+    public static final int DEFAULT_MAX_QUEUED = 32;
+
+    private static final String LABEL_PATH = "/drug/label.json";
+    private static final int CONNECT_TIMEOUT_MILLIS = 10 * 1000;
+    private static final int READ_TIMEOUT_MILLIS = 20 * 1000;
+
+    private static volatile OpenFdaClient INSTANCE;
+
+    private final String baseUrl;
+    private final TokenBucket limiter;
+    private final Map<String, Single<List<DrugLabel>>> inFlight = new HashMap<>(); //request url -> shared call
+
+    /**
+     * @param baseUrl scheme, host and port to send searches to, with no trailing slash
+     * @param requestsPerMinute steady rate calls are allowed at
+     * @param burst calls allowed at once after a quiet period
+     * @param maxQueued calls that may wait for a token before more are refused
+     */
+    public OpenFdaClient(String baseUrl, int requestsPerMinute, int burst, int maxQueued) {
+        this.baseUrl = baseUrl;
+        this.limiter = new TokenBucket(requestsPerMinute, burst, maxQueued);
+    }
+
+    /**
+     * The client for api.fda.gov shared by the app, so every screen counts against the same quota
+     * @return
+     */
+    public static OpenFdaClient getInstance() {
+        if(INSTANCE == null){
+            synchronized (OpenFdaClient.class){
+                if(INSTANCE == null){
+                    INSTANCE = new OpenFdaClient(DEFAULT_BASE_URL, DEFAULT_REQUESTS_PER_MINUTE,
+                            DEFAULT_BURST, DEFAULT_MAX_QUEUED);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Search labels by generic, brand or substance name
+     * @param name The value to search on
+     * @param limit Maximum number of labels
+     * @return Single that emits the matching labels, best match first, on an io thread. Errors with
+     * an IOException if the server cannot be reached or answers with an error, or the queue is full
+     */
+    public Single<List<DrugLabel>> search(String name, int limit) {
+        return request(nameSearch(name), limit);
+    }
+
+    /**
+     * Search labels matching any of several names in one call, e.g. to look up every saved
+     * medication at once. The caller matches the labels back to the names
+     * @param names The values to search on
+     * @param limit Maximum number of labels across every name
+     * @return Single that emits the matching labels, on an io thread
+     */
+    public Single<List<DrugLabel>> searchAnyName(Collection<String> names, int limit) {
+        StringBuilder search = new StringBuilder();
+        for(String name : names){
+            if(search.length() > 0) search.append(' ');
+            search.append(nameSearch(name));
+        }
+        return request(search.toString(), limit);
+    }
+
+    /**
+     * Blocking form of search, for callers already off the main thread. Not shared with other
+     * calls but still rate limited
+     * @param name
+     * @param limit
+     * @return
+     * @throws IOException
+     */
+    public List<DrugLabel> searchNow(String name, int limit) throws IOException {
+        return fetch(url(nameSearch(name), limit));
+    }
+
+    //joins an identical call in flight, or starts one that later identical calls can join
+    private Single<List<DrugLabel>> request(String search, int limit) {
+        String url;
+        try {
+            url = url(search, limit);
+        } catch(IOException e) {
+            return Single.error(e);
+        }
+        synchronized (inFlight) {
+            Single<List<DrugLabel>> call = inFlight.get(url);
+            if(call == null){
+                call = Single.fromCallable(() -> fetch(url))
+                        .subscribeOn(Schedulers.io())
+                        .doFinally(() -> {
+                            synchronized (inFlight) {
+                                inFlight.remove(url);
+                            }
+                        })
+                        .cache();
+                inFlight.put(url, call);
+            }
+            return call;
+        }
+    }
+
+    /*
+    openfda.generic_name:"x" openfda.brand_name:"x" openfda.substance_name:"x", which openFDA
+    treats as an OR of the three
+     */
+    static String nameSearch(String name) {
+        String quoted = "\"" + name.replace("\"", "").trim() + "\"";
+        return "openfda.generic_name:" + quoted
+                + " openfda.brand_name:" + quoted
+                + " openfda.substance_name:" + quoted;
+    }
+
+    private String url(String search, int limit) throws IOException {
+        return baseUrl + LABEL_PATH + "?search=" + URLEncoder.encode(search, "UTF-8") + "&limit=" + limit;
+    }
+
+    private List<DrugLabel> fetch(String url) throws IOException {
+        try {
+            limiter.acquire();
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted waiting to search OpenFDA", e);
+        }
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+        connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+        connection.setRequestProperty("Accept", "application/json");
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        int status = connection.getResponseCode();
+        if(status == HttpURLConnection.HTTP_NOT_FOUND){
+            drain(connection.getErrorStream());
+            return new ArrayList<>(); //openFDA answers 404 when nothing matched
+        }
+        if(status != HttpURLConnection.HTTP_OK){
+            drain(connection.getErrorStream());
+            throw new IOException("OpenFDA answered " + status + " for " + url);
+        }
+        InputStream body = connection.getInputStream();
+        if("gzip".equalsIgnoreCase(connection.getContentEncoding())){
+            body = new GZIPInputStream(body);
+        }
+        //parse reads to the end of the results and closes the stream, which returns the
+        //connection to the pool
+        return DrugLabelParser.parse(new InputStreamReader(body, "UTF-8"));
+    }
+
+    //an error body has to be read to the end too, or the connection is not reused
+    private static void drain(InputStream in) {
+        if(in == null) return;
+        byte[] buffer = new byte[1024];
+        try {
+            while(in.read(buffer) != -1) { }
+            in.close();
+        } catch(IOException ignored) {
+        }
+    }
+
+    /**
+     * Hands out permits at a steady rate up to a burst, making callers wait for their turn. Waiting
+     * callers hold reservations, tokens below zero, so they are served in the order they came.
+     * Waiting callers are counted rather than worked out from the tokens, which refill a fraction
+     * at a time
+     */
+    static final class TokenBucket {
+        private final long nanosPerToken;
+        private final int burst;
+        private final int maxQueued;
+        private double tokens;
+        private long refilledAt; //System.nanoTime
+        private int waiting; //callers sleeping until their reservation comes due
+
+        TokenBucket(int perMinute, int burst, int maxQueued) {
+            if(perMinute <= 0 || burst <= 0 || maxQueued < 0){
+                throw new IllegalArgumentException("Bad rate limit: " + perMinute + "/min, burst "
+                        + burst + ", queue " + maxQueued);
+            }
+            this.nanosPerToken = 60_000_000_000L / perMinute;
+            this.burst = burst;
+            this.maxQueued = maxQueued;
+            this.tokens = burst;
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * Wait for a permit
+         * @throws IOException if maxQueued callers are already waiting
+         * @throws InterruptedException
+         */
+        void acquire() throws IOException, InterruptedException {
+            long waitNanos = reserve();
+            if(waitNanos > 0){
+                try {
+                    Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+                } finally {
+                    synchronized (this) {
+                        waiting--;
+                    }
+                }
+            }
+        }
+
+        //takes a token, or reserves the next one, and returns how long to wait for it
+        private synchronized long reserve() throws IOException {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (double) (now - refilledAt) / nanosPerToken);
+            refilledAt = now;
+            if(tokens < 1 && waiting >= maxQueued){
+                throw new IOException("Too many OpenFDA searches waiting, " + maxQueued + " already queued");
+            }
+            tokens -= 1;
+            if(tokens >= 0) return 0;
+            waiting++;
+            return (long) (-tokens * nanosPerToken);
+        }
+    }
+}
@@ -3,8 +3,6 @@ package com.example.medication_reminder_android_app;
 import android.app.Activity;
 import android.app.DatePickerDialog;
 
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
@@ -23,6 +21,7 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.example.medication_reminder_android_app.NotificationRelay.OutOfAppNotifications;
+import com.example.medication_reminder_android_app.SQLiteDB.DateTimeCodec;
 import com.example.medication_reminder_android_app.SQLiteDB.MainViewModel;
 import com.example.medication_reminder_android_app.UserInputHandler.InputWrapper;
 import com.example.medication_reminder_android_app.UserInputHandler.MedicationInputHandler;
@@ -38,8 +37,6 @@ public class InfoInputActivity extends AppCompatActivity {
     private InputWrapper handler;
     private OutOfAppNotifications oan;
 
-    DateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd hh:mm");
-    //format string for dates
 
     /**
      * @author Robert Fahey
@@ -75,7 +72,7 @@ public class InfoInputActivity extends AppCompatActivity {
         TimePickerDialog.OnTimeSetListener setTimeVariables = new TimePickerDialog.OnTimeSetListener() {
             @Override
             public void onTimeSet(TimePicker view, int hour, int minute) {
-                cal.set(Calendar.HOUR, hour);
+                cal.set(Calendar.HOUR_OF_DAY, hour); //the picker gives 0-23
                 cal.set(Calendar.MINUTE, minute);
                 cal.set(Calendar.SECOND, 0);
                 cal.set(Calendar.MILLISECOND, 0);
@@ -97,10 +94,10 @@ public class InfoInputActivity extends AppCompatActivity {
                 Log.d("notif-debug", "Cal:" + monthOfYear);
 
                 if(isStart){
-                    startDateString = dateFormat.format(cal.getTime());
+                    startDateString = DateTimeCodec.format(cal.getTimeInMillis());
                     Log.d("notif-debug", "Cal.getTime " + startDateString);
                 }else{
-                    endDateString = dateFormat.format(cal.getTime());
+                    endDateString = DateTimeCodec.format(cal.getTimeInMillis());
                 }
             }
         };
@@ -117,7 +114,7 @@ public class InfoInputActivity extends AppCompatActivity {
         the previously set On___SetListener, the current hour and minute, and set the dialog to
         display in the 24-hour time format */
         TimePickerDialog tpg = new TimePickerDialog( InfoInputActivity.this , setTimeVariables,
-                cal.get(Calendar.HOUR),
+                cal.get(Calendar.HOUR_OF_DAY),
                 cal.get(Calendar.MINUTE),
                 false
         );
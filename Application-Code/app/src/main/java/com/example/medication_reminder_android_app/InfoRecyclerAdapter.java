@@ -4,20 +4,35 @@ import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Filter;
-import android.widget.Filterable;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.paging.PagedListAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.example.medication_reminder_android_app.SQLiteDB.MedicationEntity;
+import com.example.medication_reminder_android_app.SQLiteDB.MedicationSummary;
 
-import java.util.*;
+import java.util.Objects;
 
-public class InfoRecyclerAdapter extends RecyclerView.Adapter<InfoRecyclerAdapter.InfoViewHolder> implements Filterable {
+public class InfoRecyclerAdapter extends PagedListAdapter<MedicationSummary, InfoRecyclerAdapter.InfoViewHolder> {
+
+    /*
+    Rows are the same medication if they share a primary key, and look the same if the
+    fields shown on the card match
+     */
+    private static final DiffUtil.ItemCallback<MedicationSummary> MED_DIFF = new DiffUtil.ItemCallback<MedicationSummary>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull MedicationSummary oldItem, @NonNull MedicationSummary newItem) {
+            return oldItem.getPrimaryKey() == newItem.getPrimaryKey();
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull MedicationSummary oldItem, @NonNull MedicationSummary newItem) {
+            return Objects.equals(oldItem.getMedName(), newItem.getMedName());
+        }
+    };
 
-    private List<MedicationEntity> medEntities;
     private Context context; //the current context
     private OnItemListener medItemListener; //click listener for medication cards in the RecyclerView
 
@@ -25,10 +40,10 @@ public class InfoRecyclerAdapter extends RecyclerView.Adapter<InfoRecyclerAdapte
      * @author Robert Fahey
      * Constructor for the InfoRecyclerAdapter
      */
-    public InfoRecyclerAdapter(Context cont, List<MedicationEntity> medications, OnItemListener list){ //String[] names,
+    public InfoRecyclerAdapter(Context cont, OnItemListener list){ //String[] names,
+        super(MED_DIFF);
         context = cont;
         medItemListener = list;
-        medEntities = medications;
     }
 
     /**
@@ -49,94 +64,24 @@ public class InfoRecyclerAdapter extends RecyclerView.Adapter<InfoRecyclerAdapte
      */
     @Override
     public void onBindViewHolder(@NonNull InfoViewHolder holder, int position) {
-        if(medEntities != null){
-            MedicationEntity current = medEntities.get(position);
+        MedicationSummary current = getItem(position);
+        if(current != null){
             holder.medText.setText(current.getMedName());
         } else{
-            holder.medText.setText("No Medications");
+            holder.medText.setText(""); //placeholder until the page holding this row is loaded
         }
 
     }
 
-    public void setWords(List<MedicationEntity> meds){
-        //medDisplayList = words;
-        medEntities = meds;
-        notifyDataSetChanged();
-    }
-
-    public String getNameString(int position){
-        return medEntities.get(position).getMedName();
-    }
-
-
     /**
-     * @author Robert Fahey
-     * @return the number of medications being displayed
+     * @param position
+     * @return primary key of the medication at position, or -1 if that row has not been loaded yet
      */
-    @Override
-    public int getItemCount() {
-        if(medEntities != null) return medEntities.size();
-        return 0;
-    }
-
-    /**
-     * @author Robert Fahey
-     * @return a medFilter object
-     */
-    @Override
-    public Filter getFilter() {
-        return medFilter;
+    public long getMedId(int position){
+        MedicationSummary med = getItem(position);
+        return med == null ? -1 : med.getPrimaryKey();
     }
 
-    private Filter medFilter = new Filter() {
-        /**
-         * @author Robert Fahey
-         * @param constraint the text entered into the search bar
-         * @return the results formatted as a FilterResults object
-         */
-        @Override
-        protected FilterResults performFiltering(CharSequence constraint) {
-            ArrayList<MedicationEntity> filtered = new ArrayList<>(); // a new array list for storing filter results
-
-            if(constraint == null || constraint.length() == 0){
-                //if the search bar is empty, display all medications
-                for(MedicationEntity m: medEntities){
-                    filtered.add(m);
-                }
-            } else {
-                // if the search bar isn't empty ...
-                String pattern = constraint.toString().toLowerCase().trim(); //get the text in the search bar, set it to lowercase
-
-                /*for each string in the master medication array list,
-                compare the string to the previously declared pattern. If the string contains the pattern,
-                add the string to the filter results array*/
-                for(MedicationEntity m : medEntities){
-                    if (m.getMedName().toLowerCase().contains(pattern)){
-                        filtered.add(m);
-                    }
-                }
-            }
-
-            //Convert the array list of results to a FilterResults object and return it
-            FilterResults result = new FilterResults();
-            result.values = filtered;
-            return result;
-        }
-
-        /**
-         * @author Robert Fahey
-         * @param constraint the text entered into the search bar
-         * @param results the results of the previous performFiltering call
-         * Resets the contents of the RecyclerView to the filtered search results
-         */
-        @Override
-        protected void publishResults(CharSequence constraint, FilterResults results) {
-            medEntities = (List<MedicationEntity>) results.values;
-//            medDisplayList.clear();
-//            medDisplayList.addAll((List) results.values);
-            notifyDataSetChanged();
-        }
-    };
 
     /**
      * @author Robert Fahey
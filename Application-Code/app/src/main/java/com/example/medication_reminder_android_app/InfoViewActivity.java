@@ -10,11 +10,12 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.paging.PagedList;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.medication_reminder_android_app.SQLiteDB.MainViewModel;
-import com.example.medication_reminder_android_app.SQLiteDB.MedicationEntity;
+import com.example.medication_reminder_android_app.SQLiteDB.MedicationSummary;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
@@ -50,23 +51,24 @@ public class InfoViewActivity extends AppCompatActivity implements InfoRecyclerA
         and assign a linear layout manager to the recycler
         */
         infoRecycler = findViewById(R.id.info_recycler);
-        infoadapter = new InfoRecyclerAdapter(this, null, this);
+        infoadapter = new InfoRecyclerAdapter(this, this);
         infoRecycler.setAdapter(infoadapter);
         infoRecycler.setLayoutManager(new LinearLayoutManager(this));
 
         /*
-        Get the list of all the medications from the SQLite Database
+        Get the list of all the medications from the SQLite Database, a page at a time
          */
-        infoMVM.getMeds().observe(this, new Observer<List<MedicationEntity>>() {
+        infoMVM.getMeds().observe(this, new Observer<PagedList<MedicationSummary>>() {
             @Override
-            public void onChanged(List<MedicationEntity> medicationEntityList) {
-                infoadapter.setWords(medicationEntityList); //UI method to show the list of Meds
+            public void onChanged(PagedList<MedicationSummary> medicationEntityList) {
+                infoadapter.submitList(medicationEntityList); //UI method to show the list of Meds
             }
         });
 
         //instantiate a SearchView object
         SearchView medSearch = findViewById(R.id.med_search);
-        /* If the contents of the search bar are changed, filter the contents of the RecyclerView by the query*/
+        /* If the contents of the search bar are changed, filter the contents of the RecyclerView by the query.
+        The filtering is done by the database's full text index, results arrive through getMeds()*/
         medSearch.setOnQueryTextListener(new SearchView.OnQueryTextListener() {
             @Override
             public boolean onQueryTextSubmit(String query) {
@@ -75,7 +77,7 @@ public class InfoViewActivity extends AppCompatActivity implements InfoRecyclerA
 
             @Override
             public boolean onQueryTextChange(String newText) {
-                infoadapter.getFilter().filter(newText);
+                infoMVM.setMedSearchQuery(newText);
                 return false;
             }
         });
@@ -112,7 +114,9 @@ public class InfoViewActivity extends AppCompatActivity implements InfoRecyclerA
     @Override
     public void onItemClick(int position) {
         Intent intent = new Intent(this, MedViewActivity.class);
-        intent.putExtra("current_medication", infoadapter.getNameString(position));
+        long medId = infoadapter.getMedId(position);
+        if(medId == -1) return; //placeholder, row not loaded yet
+        intent.putExtra("current_medication_id", medId);
         startActivity(intent);
     }
 
@@ -7,6 +7,7 @@ import android.view.View;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.example.medication_reminder_android_app.FDADatabaseHandler.LabelEnricher;
 import com.example.medication_reminder_android_app.NotificationRelay.OutOfAppNotifications;
 import com.example.medication_reminder_android_app.SQLiteDB.MainViewModel;
 import com.example.medication_reminder_android_app.UserInputHandler.InputWrapper;
@@ -29,6 +30,11 @@ public class MainActivity extends AppCompatActivity {
         inputWrapper = new InputWrapper(model);
         OutOfAppNotifications outOfAppNotifs = new OutOfAppNotifications(model, this, inputWrapper);
         inputWrapper.setOutOfAppNotifications(outOfAppNotifs);
+        //looks up FDA labels for medications saved while offline. Not in the Application, which is
+        //also created for alarms and notification actions that have no use for the network
+        if(savedInstanceState == null) {
+            LabelEnricher.getInstance(this).requestRun();
+        }
 
         setContentView(R.layout.activity_main);
 
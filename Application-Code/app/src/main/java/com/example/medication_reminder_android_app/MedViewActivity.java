@@ -7,9 +7,13 @@ import android.widget.TextView;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.example.medication_reminder_android_app.FDADatabaseHandler.DataBaseHandler;
+import com.example.medication_reminder_android_app.FDADatabaseHandler.DrugLabel;
 import com.example.medication_reminder_android_app.SQLiteDB.MainViewModel;
 import com.example.medication_reminder_android_app.SQLiteDB.MedicationEntity;
 
+import java.util.List;
+
 import io.reactivex.Single;
 import io.reactivex.annotations.NonNull;
 import io.reactivex.observers.DisposableSingleObserver;
@@ -39,12 +43,16 @@ public class MedViewActivity extends AppCompatActivity {
             }
         });
 
-        currentMedString = getIntent().getStringExtra("current_medication");
+        //the list only holds a MedicationSummary, the full row is loaded here by primary key
+        long currentMedId = getIntent().getLongExtra("current_medication_id", -1);
         mavm = new ViewModelProvider(this).get(MainViewModel.class);
-        mavm.getMedByName(currentMedString).subscribeOn(Schedulers.io()).subscribe(new DisposableSingleObserver<MedicationEntity>() {
+        mavm.getMedById(currentMedId).subscribeOn(Schedulers.io()).subscribe(new DisposableSingleObserver<MedicationEntity>() {
             @Override
             public void onSuccess(@NonNull MedicationEntity medicationEntity) {
-                onCreateHelper(medicationEntity);
+                runOnUiThread(() -> {
+                    currentMedString = medicationEntity.getMedName();
+                    onCreateHelper(medicationEntity);
+                });
             }
 
             @Override
@@ -68,5 +76,33 @@ public class MedViewActivity extends AppCompatActivity {
         startLabel.setText(currentMedEntity.getFirstDate());
         endLabel.setText(currentMedEntity.getEndDate());
         recurringLabel.setText(recur);
+        showLabelPurpose(currentMedEntity);
+    }
+
+    /*
+    LabelEnricher stores the purpose on the medication, so it is usually shown from the row. The
+    label is only looked up, through the label cache, for a medication the enricher has not reached
+    yet. One it checked and found no purpose for shows nothing
+     */
+    private void showLabelPurpose(MedicationEntity medication) {
+        TextView purposeLabel = findViewById(R.id.purpose_view_label);
+        if(medication.getPurpose() != null) {
+            purposeLabel.setText(medication.getPurpose());
+            return;
+        }
+        String medName = medication.getMedName();
+        if(medication.getFdaCheckedAt() > 0 || medName == null || medName.trim().isEmpty()) return;
+        new DataBaseHandler(1, this).lookupLabels(medName).subscribe(new DisposableSingleObserver<List<DrugLabel>>() {
+            @Override
+            public void onSuccess(@NonNull List<DrugLabel> labels) {
+                if(labels.isEmpty() || labels.get(0).getPurpose() == null) return;
+                runOnUiThread(() -> purposeLabel.setText(labels.get(0).getPurpose()));
+            }
+
+            @Override
+            public void onError(@NonNull Throwable e) {
+
+            }
+        });
     }
 }
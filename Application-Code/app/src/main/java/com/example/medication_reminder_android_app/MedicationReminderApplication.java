@@ -0,0 +1,20 @@
+package com.example.medication_reminder_android_app;
+
+import android.app.Application;
+
+import com.example.medication_reminder_android_app.NotificationRelay.NotificationChannels;
+import com.example.medication_reminder_android_app.NotificationRelay.ReminderScheduler;
+
+/**
+ * Starts the process-wide pieces that do not belong to any one Activity
+ */
+public class MedicationReminderApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        NotificationChannels.register(this);
+        //loads the pending reminders and arms the alarm for the next one
+        ReminderScheduler.getInstance(this);
+    }
+}
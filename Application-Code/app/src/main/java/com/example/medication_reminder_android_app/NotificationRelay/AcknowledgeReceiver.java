@@ -5,7 +5,6 @@ package com.example.medication_reminder_android_app.NotificationRelay;
 import android.content.Context;
 import android.content.Intent;
 import android.content.BroadcastReceiver;
-import com.example.medication_reminder_android_app.UserInputHandler.InputWrapper.InputType;
 
  /**
     @author: Karley Waguespack
@@ -19,7 +18,6 @@ import com.example.medication_reminder_android_app.UserInputHandler.InputWrapper
 public class AcknowledgeReceiver extends BroadcastReceiver{
 
 
-    private Long reminderID = new Long(0); //holds reminder ID associated with this request
     private final boolean ACKNOWLEDGED = false; //acknowledged is represented by a false boolean variable
 
 
@@ -28,19 +26,15 @@ public class AcknowledgeReceiver extends BroadcastReceiver{
    Last Modified: 03/24/2021
 
    Description: this method gets called when the class receives an acknowledge intent; this code
-   gets executed when the user presses "acknowledge." It sends the input handler
-   the associated reminder ID and a boolean indicating what action occurred).
+   gets executed when the user presses "acknowledge." It records the acknowledgement and moves the
+   reminder on to its next dose, see AcknowledgementHandler. Works whether or not the app is running.
 
  */
     @Override
     public void onReceive(Context context, Intent intent){
 
         //do stuff here; this is what happens when acknowledge is pressed
-        reminderID = intent.getParcelableExtra("reminderID");
-        //use the input wrapper object inside of OutOfAppNotifications
-        OutOfAppNotifications.inputWrapper.processAcknowledgementRequest(InputType.Medication, reminderID, ACKNOWLEDGED);
-
-
+        AcknowledgementHandler.handle(goAsync(), context, intent, ACKNOWLEDGED);
 
     }
 
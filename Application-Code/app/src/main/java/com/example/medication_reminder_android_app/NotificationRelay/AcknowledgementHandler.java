@@ -0,0 +1,81 @@
+package com.example.medication_reminder_android_app.NotificationRelay;
+
+import android.app.Application;
+import android.app.NotificationManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.medication_reminder_android_app.SQLiteDB.DatabaseRepository;
+import com.example.medication_reminder_android_app.SQLiteDB.TimeRuleSchedule;
+
+/**
+ * The work behind the Acknowledge and Ignore notification actions, shared by AcknowledgeReceiver
+ * and IgnoreReceiver.
+ *
+ * The reminder id and the due time of the dose the notification was for are all it needs. A second
+ * tap on the same notification finds the reminder already moved past that due time and writes
+ * nothing, so it cannot skip the next dose. The acknowledgement and the move to the next dose are one
+ * write on the process-wide repository, and the scheduler is told the new due time once it has
+ * committed. Nothing depends on an Activity, so a tap hours later, after the process was killed,
+ * works the same. How long each tap took, and how long after the process started, is logged.
+ */
+final class AcknowledgementHandler {
+
+    static final String EXTRA_REMINDER_ID = "reminderID";
+    static final String EXTRA_DUE_AT = "dueAt"; //epoch millis the reminder was due when its notification was posted
+
+    private static final String TAG = "app-ack";
+
+    private AcknowledgementHandler(){}
+
+    /**
+     * @param result from the receiver's goAsync(), finished once the write has committed
+     * @param context
+     * @param intent carries EXTRA_REMINDER_ID and EXTRA_DUE_AT as longs
+     * @param dismissed true for Ignore, false for Acknowledge
+     */
+    static void handle(BroadcastReceiver.PendingResult result, Context context, Intent intent, boolean dismissed){
+        long started = SystemClock.elapsedRealtime();
+        long reminderId = intent.getLongExtra(EXTRA_REMINDER_ID, -1);
+        long expectedDueAt = intent.getLongExtra(EXTRA_DUE_AT, -1);
+        if(reminderId < 0){
+            Log.d(TAG, "Notification action without a reminder id");
+            result.finish();
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+
+        //action buttons do not auto cancel the notification they are on
+        NotificationManager notificationManager = (NotificationManager) appContext.getSystemService(Context.NOTIFICATION_SERVICE);
+        if(notificationManager != null){
+            notificationManager.cancel(ReminderNotifier.notificationId(reminderId));
+        }
+
+        DatabaseRepository.getInstance((Application) appContext)
+                .acknowledgeReminder(reminderId, expectedDueAt, dismissed, System.currentTimeMillis())
+                .doFinally(result::finish)
+                .subscribe(next -> {
+                    ReminderScheduler scheduler = ReminderScheduler.getInstance(appContext);
+                    if(next == TimeRuleSchedule.NONE){
+                        scheduler.cancel(reminderId);
+                    } else {
+                        scheduler.schedule(reminderId, next);
+                    }
+                    Log.d(TAG, timing(reminderId, started));
+                }, e -> Log.d(TAG, "Could not acknowledge reminder " + reminderId, e));
+    }
+
+    private static String timing(long reminderId, long started){
+        String message = "Reminder " + reminderId + " acknowledged in " + (SystemClock.elapsedRealtime() - started) + "ms";
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.N){
+            //small when the tap had to start the process
+            message += ", " + (started - Process.getStartElapsedRealtime()) + "ms after the process started";
+        }
+        return message;
+    }
+}
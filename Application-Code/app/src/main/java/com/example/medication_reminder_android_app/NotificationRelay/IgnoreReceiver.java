@@ -2,7 +2,6 @@ package com.example.medication_reminder_android_app.NotificationRelay;
 import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import com.example.medication_reminder_android_app.UserInputHandler.InputWrapper.InputType;
 
 
  /**
@@ -16,7 +15,6 @@ import com.example.medication_reminder_android_app.UserInputHandler.InputWrapper
 
 public class IgnoreReceiver extends BroadcastReceiver{
 
-    private Integer reminderID = new Integer(0);
     private final boolean IGNORED = true; //ignore is equivalent to a true boolean value
 
 
@@ -25,15 +23,13 @@ public class IgnoreReceiver extends BroadcastReceiver{
    Last Modified: 03/24/2021
 
    Description: this method gets called when the class receives an ignore intent; happens when the user
-   presses "ignore" on the notif. Method sends the input handler the associated reminder ID and a boolean
-   indicating the notification was ignored so that it may respond appropriately
+   presses "ignore" on the notif. The dose is recorded as skipped and the reminder moved on to its
+   next dose, see AcknowledgementHandler. Works whether or not the app is running.
 
  */
     @Override
     public void onReceive(Context context, Intent intent){
-        //pass the
-        reminderID = intent.getParcelableExtra("reminderID");
-        OutOfAppNotifications.inputWrapper.processAcknowledgementRequest(InputType.Medication, reminderID, IGNORED);
+        AcknowledgementHandler.handle(goAsync(), context, intent, IGNORED);
 
     }
 }
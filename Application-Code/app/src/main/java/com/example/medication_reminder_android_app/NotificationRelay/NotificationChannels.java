@@ -0,0 +1,65 @@
+package com.example.medication_reminder_android_app.NotificationRelay;
+
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Build;
+
+import com.example.medication_reminder_android_app.R;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The notification channels, one per kind of reminder. They are registered once when the
+ * application starts, see MedicationReminderApplication, instead of every time a notification is
+ * posted. Registering a channel that already exists only updates its name.
+ */
+public final class NotificationChannels {
+
+    static final String MEDICATION = "medication";
+    static final String APPOINTMENT = "appointment";
+    static final String EXTRANEOUS = "extraneous";
+
+    //every reminder notification is in this group, so a burst collapses under one summary
+    static final String GROUP_REMINDERS = "reminders";
+
+    /*
+    Before Android N a group shows only its summary on the phone, the children and their
+    Acknowledge/Ignore buttons are only shown on a paired wearable, so reminders are posted
+    ungrouped there
+     */
+    static final boolean GROUPS_SUPPORTED = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N;
+
+    private static final String LEGACY_CHANNEL = "10001"; //the single channel used before these
+
+    private NotificationChannels(){}
+
+    /**
+     * Create the channels. Does nothing before Android O, which has no channels
+     * @param context
+     */
+    public static void register(Context context){
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.O) return;
+        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if(notificationManager == null) return;
+        List<NotificationChannel> channels = new ArrayList<>();
+        channels.add(new NotificationChannel(MEDICATION, context.getString(R.string.channel_medication), NotificationManager.IMPORTANCE_HIGH));
+        channels.add(new NotificationChannel(APPOINTMENT, context.getString(R.string.channel_appointment), NotificationManager.IMPORTANCE_HIGH));
+        channels.add(new NotificationChannel(EXTRANEOUS, context.getString(R.string.channel_extraneous), NotificationManager.IMPORTANCE_HIGH));
+        notificationManager.createNotificationChannels(channels);
+        notificationManager.deleteNotificationChannel(LEGACY_CHANNEL);
+    }
+
+    /**
+     * @param typeNotif M, A or E, as in the info array from Notifications.getData
+     * @return the channel for that kind of reminder
+     */
+    static String forType(char typeNotif){
+        switch(typeNotif){
+            case 'M': return MEDICATION;
+            case 'A': return APPOINTMENT;
+            default: return EXTRANEOUS;
+        }
+    }
+}
@@ -1,46 +1,73 @@
 package com.example.medication_reminder_android_app.NotificationRelay;
 
 
-import android.app.Notification ;
-import android.app.NotificationChannel ;
-import android.app.NotificationManager ;
+import android.app.Application;
 import android.content.BroadcastReceiver ;
 import android.content.Context ;
 import android.content.Intent ;
-import static com.example.medication_reminder_android_app.NotificationRelay.OutOfAppNotifications.NOTIFICATION_CHANNEL_ID;
+import android.util.Log;
+
+import com.example.medication_reminder_android_app.SQLiteDB.DatabaseRepository;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import io.reactivex.Single;
+import io.reactivex.schedulers.Schedulers;
 
  /*
     @author: Aliza Siddiqui, Karley Waguespack
     Last Modified: 03/15/2021
 
-    Description: Receiver class for the notification intents in MainActivity; listens for requests
-    and starts up the notification service
+    Description: Receiver for the ReminderScheduler alarm; looks up every reminder that is due in
+    one query, posts a notification for each and lets the scheduler arm the alarm for the next one
 
   */
 
 public class NotificationPublisher extends BroadcastReceiver {
 
-    public static String NOTIFICATION_ID = "notification-id" ;
-    public static String NOTIFICATION = "notification" ;
+    private static final String TAG = "app-notif-debug";
+
     public void onReceive (Context context , Intent intent) {
-        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE ) ;
-        Notification notification = intent.getParcelableExtra( NOTIFICATION ) ;
-        if (android.os.Build.VERSION. SDK_INT >= android.os.Build.VERSION_CODES. O ) {
-            int importance = NotificationManager. IMPORTANCE_HIGH ;
-            NotificationChannel notificationChannel = new NotificationChannel(NOTIFICATION_CHANNEL_ID, "NOTIFICATION_CHANNEL_NAME", importance) ;
-            assert notificationManager != null;
-            notificationManager.createNotificationChannel(notificationChannel);
+        if(!ReminderScheduler.ACTION_REMINDERS_DUE.equals(intent.getAction())) return;
+        long firedAt = System.currentTimeMillis();
+        Context appContext = context.getApplicationContext();
+        ReminderScheduler scheduler = ReminderScheduler.getInstance(appContext);
+        DatabaseRepository repository = DatabaseRepository.getInstance((Application) appContext);
+        ReminderNotifier notifier = new ReminderNotifier(appContext);
+
+        //how late the alarm is, to see what Doze does to reminders
+        long scheduledAt = intent.getLongExtra(ReminderScheduler.EXTRA_SCHEDULED_AT, 0);
+        if(scheduledAt > 0){
+            repository.recordFireDrift(scheduledAt, firedAt);
         }
-        int id = intent.getIntExtra(NOTIFICATION_ID, 0 );
-        assert notificationManager != null;
-        notificationManager.notify(id, notification);
-    }
+        //keeps dose occurrences generated for patients who never open the app, at most hourly
+        repository.topUpDoseOccurrences();
 
-    public static void setNotificationID(Integer Id){
-        NOTIFICATION_ID = String.valueOf(Id);
+        //the lookup outlives onReceive; finish() tells the system the process can go once it is done
+        long[] carried = intent.getLongArrayExtra(ReminderScheduler.EXTRA_REMINDER_IDS);
+        PendingResult result = goAsync();
+        //if the process was just started the scheduler's queue is still being loaded
+        scheduler.whenRehydrated()
+                .andThen(Single.fromCallable(() -> dueReminders(carried, scheduler.takeDue(System.currentTimeMillis()))))
+                .flatMap(repository::getRemindersWithTarget)
+                .subscribeOn(Schedulers.io())
+                .doFinally(result::finish)
+                .subscribe(notifier::post, e -> Log.d(TAG, "Could not post due reminders", e));
     }
 
+    //the reminders the alarm carried and any others the scheduler has due, each once
+    private static long[] dueReminders(long[] carried, List<Long> due){
+        Set<Long> ids = new LinkedHashSet<>();
+        if(carried != null){
+            for(long id : carried) ids.add(id);
+        }
+        ids.addAll(due);
+        long[] out = new long[ids.size()];
+        int i = 0;
+        for(long id : ids) out[i++] = id;
+        return out;
+    }
 
-
-
-}
\ No newline at end of file
+}
@@ -18,12 +18,20 @@ import io.reactivex.schedulers.Schedulers;
 
 public abstract class Notifications {
 
-    protected MainViewModel model;
+    protected DatabaseRepository repository;
     protected String[] info;
 
     public Notifications(MainViewModel model){
-        this.model = model;
-        this.info = new String[3];
+        this(model.repository);
+    }
+
+    /**
+     * For use outside an Activity, such as when an alarm fires
+     * @param repository
+     */
+    public Notifications(DatabaseRepository repository){
+        this.repository = repository;
+        this.info = new String[4];
 
     }
 
@@ -40,6 +48,7 @@ public abstract class Notifications {
                 0th element: medication or doctor name (or type of appointment if no doctor)
                 1st element: notification type
                 2nd element: the associated reminder id
+                3rd element: the reminder's due time, epoch millis
 
     Notification type key:
                 Medication = "MED"
@@ -52,70 +61,52 @@ public abstract class Notifications {
     //should take either a reminder or a reminder ID
     protected void getData(long reminderID) {
 
-        model.getReminderById(reminderID).subscribeOn(Schedulers.io()).subscribe(new DisposableSingleObserver<ReminderEntity>() {
+        //one query resolves the reminder and what it is for
+        repository.getReminderWithTarget(reminderID).subscribeOn(Schedulers.io()).subscribe(new DisposableSingleObserver<ReminderWithTarget>() {
             @Override
-            public void onSuccess(@NonNull ReminderEntity reminderEntity) {
-                getDataHelper1(reminderEntity);
+            public void onSuccess(@NonNull ReminderWithTarget reminderWithTarget) {
+                getDataHelper(reminderWithTarget);
             }
 
             @Override
             public void onError(@NonNull Throwable e) {
-
+                Log.d("app-notif-debug", "No reminder with id " + reminderID, e);
             }
         });
 
 
     }
 
-    private void getDataHelper1(ReminderEntity reminder){
-        String reminderType = reminder.getClassification();
-
-        if(reminderType.equals("M")){
-            //retrieve the medication object from the reminder
-            long medPk = reminder.getMedApptId();
-            model.getMedById(medPk).subscribeOn(Schedulers.io()).subscribe(new DisposableSingleObserver<MedicationEntity>() {
-                @Override
-                public void onSuccess(@NonNull MedicationEntity medicationEntity) {
-                    getDataHelperMed(medicationEntity, reminder);
-                }
-
-                @Override
-                public void onError(@NonNull Throwable e) {
-                    RxJavaPlugins.setErrorHandler(Functions.<Throwable>emptyConsumer());
-                }
-            });
-
-        } else{
-            //otherwise, we have an appointment;
-            //TODO create appointment entity from id
-            //TODO regular appointments get APPT, Extraneous ones get EAPPT; check if it has a doctorId
-
-        }
+    private void getDataHelper(ReminderWithTarget target){
+        sendInfoArray(toInfoArray(target), target.getReminder());
     }
 
-    private void getDataHelperMed(MedicationEntity med, ReminderEntity r){
-        if(r == null){
-            Log.d("app-notif-debug", "Reminder is null. line 100");
-        }
-
-        if(med == null){
-            Log.d("app-notif-debug", "Med is null. line 104");
-        }
+    /**
+     * The info array for a reminder, see getData
+     * @param target
+     * @return
+     */
+    static String[] toInfoArray(ReminderWithTarget target){
+        ReminderEntity r = target.getReminder();
         //string info array to be returned
-        String[] infoArray = new String[3];
-
-        infoArray[0] = "M";
-        //get the med name
-        infoArray[1] = med.getMedName();
-        infoArray[2] = Long.toString(med.getReminderID());
-        sendInfoArray(infoArray, r);
-        //return infoArray;
-    }
-
-    private void getDataHelperDr(){
-        //otherwise, we have an appointment;
-        //TODO create appointment entity from id
-        //TODO regular appointments get APPT, Extraneous ones get EAPPT; check if it has a doctorId
+        String[] infoArray = new String[4];
+
+        if(r.getClassification().equals("M")){
+            infoArray[0] = "M";
+            //get the med name
+            infoArray[1] = target.getTargetMedName();
+        } else if(target.getTargetDoctorName() != null){
+            //regular appointments get APPT
+            infoArray[0] = "A";
+            infoArray[1] = target.getTargetDoctorName();
+        } else{
+            //Extraneous ones get EAPPT
+            infoArray[0] = "E";
+            infoArray[1] = target.getTargetApptType();
+        }
+        infoArray[2] = Long.toString(r.getPrimaryKey());
+        infoArray[3] = Long.toString(r.getDueAtEpochMillis());
+        return infoArray;
     }
 
 
@@ -6,7 +6,6 @@ package com.example.medication_reminder_android_app.NotificationRelay;
 import com.example.medication_reminder_android_app.R;
 
 import java.util.Calendar;
-import android.app.AlarmManager;
 import android.app.Notification;
 import android.app.PendingIntent;
 import android.content.Context;
@@ -18,9 +17,10 @@ import androidx.core.app.NotificationCompat;
 
 import com.example.medication_reminder_android_app.NotificationRelay.AcknowledgeReceiver;
 import com.example.medication_reminder_android_app.NotificationRelay.IgnoreReceiver;
-import com.example.medication_reminder_android_app.NotificationRelay.NotificationPublisher;
+import com.example.medication_reminder_android_app.SQLiteDB.DateTimeCodec;
 import com.example.medication_reminder_android_app.SQLiteDB.MainViewModel;
 import com.example.medication_reminder_android_app.SQLiteDB.ReminderEntity;
+import com.example.medication_reminder_android_app.SQLiteDB.TimeRuleSchedule;
 import com.example.medication_reminder_android_app.UserInputHandler.InputWrapper;
 
 import io.reactivex.annotations.NonNull;
@@ -48,14 +48,6 @@ public class OutOfAppNotifications extends Notifications{
     private String medicationName;
     private String notificationName;
 
-    //notificatiion channel information
-    private final static String default_notification_channel_id = "default" ;
-    public static final String NOTIFICATION_CHANNEL_ID = "10001" ;
-
-    //create a calendar object
-    Calendar myCalendar = Calendar.getInstance();
-
-
     //constructor
     public OutOfAppNotifications(MainViewModel model, Context context, InputWrapper inputWrapper){
         super(model);
@@ -67,7 +59,7 @@ public class OutOfAppNotifications extends Notifications{
 
     @Override
     protected void sendInfoArray(String[] info, ReminderEntity r){
-        finishBuildNotif(info, r);
+        finishScheduling(r);
     }
 
 
@@ -88,21 +80,43 @@ public class OutOfAppNotifications extends Notifications{
         buildNotification(reminderID);
     }
 
+    /**
+     * Move a reminder to the time an acknowledgement committed for it
+     * @param reminderID
+     * @param dueAt epoch millis, or TimeRuleSchedule.NONE to stop reminding
+     */
+    public void rescheduleNotification(long reminderID, long dueAt) {
+        ReminderScheduler scheduler = ReminderScheduler.getInstance(context);
+        if(dueAt == TimeRuleSchedule.NONE) {
+            scheduler.cancel(reminderID);
+        } else {
+            scheduler.schedule(reminderID, dueAt);
+        }
+    }
+
     /**
      * @author Hayley Roberts
      * Last modified: 03/26/2021
      *
-     * Description: Separate the scheduling into 2 parts due to asynchrynous threading
-     * @param notification
-     * @return
+     * Description: Separate the scheduling into 2 parts due to asynchrynous threading. The
+     * notification itself is built by NotificationPublisher when the reminder is due
+     * @param r
      */
     //Have to break apart the scheduling to two parts because of asynchrynous threads
-    private Notification finishScheduling(Notification notification){
-        long chosenTime = myCalendar.getTimeInMillis();
-        long currentTime = System.currentTimeMillis();
-        long delay = chosenTime - currentTime;
-        Notification myNotif = startNotificationService(notification, System.currentTimeMillis() + delay);
-        return myNotif;
+    private void finishScheduling(ReminderEntity r){
+        long dueAt;
+        try {
+            dueAt = r.getDueAtEpochMillis() > 0 ? r.getDueAtEpochMillis() : createCalendarObject(r).getTimeInMillis();
+        } catch(IllegalArgumentException e) {
+            Log.d("notif-debug", "Reminder " + r.getPrimaryKey() + " has no usable date", e);
+            return;
+        }
+        if(dueAt <= System.currentTimeMillis()) {
+            //already past, e.g. read before an acknowledgement moved it on; it would fire at once
+            Log.d("notif-debug", "Reminder " + r.getPrimaryKey() + " is not in the future, not scheduling it");
+            return;
+        }
+        ReminderScheduler.getInstance(context).schedule(r.getPrimaryKey(), dueAt);
     }
 
 
@@ -130,38 +144,6 @@ public class OutOfAppNotifications extends Notifications{
 
 
 
-    /**
-    @authors: Aliza Siddiqui and Karley Waguespack
-    Last Modified: 03/11/2021
-
-    Description: sends an intent to the NotificationPublisher class to start up the notification service
-
-    @params: Notification: the notificaation to be sent.
-             delay: the time in miliseconds to send the notif
-
-    return value: the notification to be sent
-     */
-    private Notification startNotificationService(Notification notification, long delay) {
-        //create a new intent to start the notification publisher
-        Intent notificationIntent = new Intent(context, NotificationPublisher.class);
-
-        //put some extra data in it: the notification's ID and the notification itself (built with notificationCompat)
-        notificationIntent.putExtra(NotificationPublisher.NOTIFICATION_ID, 1 ) ;
-        notificationIntent.putExtra(NotificationPublisher.NOTIFICATION, notification) ;
-
-        //create a new pendingIntent to pass onto alarm manager; alarm manager will be able to use the data to send the notif
-        PendingIntent pendingIntent = PendingIntent.getBroadcast(context, 0, notificationIntent, PendingIntent.FLAG_UPDATE_CURRENT);
-
-        //create a new alarm manager object
-        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
-        assert alarmManager != null;
-
-        //send the notification using the specified delay; delay must be ms from now
-        alarmManager.set(AlarmManager.RTC_WAKEUP, delay, pendingIntent) ;
-        return notification;
-    }
-
-
     /**
     @author: Aliza Siddiqui
     Last Modified: 03/24/2021 by Karley
@@ -181,117 +163,85 @@ public class OutOfAppNotifications extends Notifications{
 
     }
 
-    //Had to separate the buildNotification into 2 parts because of asynchrynous threads
-    //Had to separate the buildNotification into 2 parts because of asynchrynous threads
-    private void finishBuildNotif(String[] infoArray, ReminderEntity r){
+    /**
+     * Builds the notification for a reminder from the info array made by getData. Called when the
+     * reminder is due, see NotificationPublisher
+     * @param context
+     * @param infoArray
+     * @return
+     */
+    static Notification createNotification(Context context, String[] infoArray){
 
-        Long reminderId = Long.parseLong(infoArray[2]);
-        setData(infoArray);
-        typeNotif = infoArray[0].charAt(0);
+        long reminderId = Long.parseLong(infoArray[2]);
+        long dueAt = Long.parseLong(infoArray[3]);
+        char typeNotif = infoArray[0].charAt(0);
+        String name = infoArray[1];
 
-        //create intents for the acknowledge and ignore button receivers; bundle the reminderId
+        //create intents for the acknowledge and ignore button receivers; bundle the reminderId and the
+        //due time of this dose as longs, so a second tap once the reminder has moved on is ignored.
+        //The request code is per reminder, otherwise every notification's buttons would share the first one's extras
+        int requestCode = ReminderNotifier.notificationId(reminderId);
         Intent acknowledgeIntent = new Intent(context, AcknowledgeReceiver.class);
-        acknowledgeIntent.putExtra("reminderID", reminderId);
-        PendingIntent acknowledge_pintent = PendingIntent.getBroadcast(context, 0, acknowledgeIntent, 0);
+        acknowledgeIntent.putExtra(AcknowledgementHandler.EXTRA_REMINDER_ID, reminderId);
+        acknowledgeIntent.putExtra(AcknowledgementHandler.EXTRA_DUE_AT, dueAt);
+        PendingIntent acknowledge_pintent = PendingIntent.getBroadcast(context, requestCode, acknowledgeIntent, PendingIntent.FLAG_UPDATE_CURRENT);
 
         Intent ignoreIntent = new Intent(context, IgnoreReceiver.class);
-        ignoreIntent.putExtra("reminderID", reminderId);
+        ignoreIntent.putExtra(AcknowledgementHandler.EXTRA_REMINDER_ID, reminderId);
+        ignoreIntent.putExtra(AcknowledgementHandler.EXTRA_DUE_AT, dueAt);
         //ignoreIntent.putExtra("inputWrapper", inputWrapper);
-        PendingIntent ignore_pintent = PendingIntent.getBroadcast(context, 0, ignoreIntent, 0);
-
-        //build the calendar object for sending out the notification; stored globally
-        myCalendar = createCalendarObject(r);
+        PendingIntent ignore_pintent = PendingIntent.getBroadcast(context, requestCode, ignoreIntent, PendingIntent.FLAG_UPDATE_CURRENT);
 
         NotificationCompat.Builder builder = null;
+        String channel = NotificationChannels.forType(typeNotif);
         //formats notification for user
         switch(typeNotif){
             case 'M': //Medication Notification
-                builder = new NotificationCompat.Builder(context, default_notification_channel_id)
+                builder = new NotificationCompat.Builder(context, channel)
                         .setContentTitle("Medication Reminder")
-                        .setContentText("It is time to take your dosage of " + this.medicationName + "!")
+                        .setContentText(contentText(typeNotif, name))
                         .setSmallIcon(R.drawable.ic_launcher_foreground)
                         .setPriority(NotificationCompat.PRIORITY_HIGH)
                         .setAutoCancel(true)
                         .addAction(R.drawable. ic_launcher_foreground , "Acknowledge" , acknowledge_pintent)
-                        .addAction(R.drawable.ic_launcher_background, "Ignore", ignore_pintent)
-                        .setChannelId(NOTIFICATION_CHANNEL_ID);
+                        .addAction(R.drawable.ic_launcher_background, "Ignore", ignore_pintent);
                 break;
             case 'A': //Doctor Appointment Notification
-                builder = new NotificationCompat.Builder(context, default_notification_channel_id)
+                builder = new NotificationCompat.Builder(context, channel)
                         .setContentTitle("=========DOCTOR APPOINTMENT REMINDER===========")
-                        .setContentText("Meet with Dr. " + this.doctorName + " now!")
+                        .setContentText(contentText(typeNotif, name))
                         .setSmallIcon(R.drawable.ic_launcher_foreground)
                         .setPriority(NotificationCompat.PRIORITY_HIGH)
-                        .setAutoCancel( true )
-                        .setChannelId(NOTIFICATION_CHANNEL_ID);
+                        .setAutoCancel( true );
                 break;
             case 'E': //Miscellaneous health appointments
-                builder = new NotificationCompat.Builder(context, default_notification_channel_id)
-                        .setContentTitle("=======" + this.notificationName + " REMINDER========")
-                        .setContentText("You need to do " + this.notificationName + " right now!")
+                builder = new NotificationCompat.Builder(context, channel)
+                        .setContentTitle("=======" + name + " REMINDER========")
+                        .setContentText(contentText(typeNotif, name))
                         .setSmallIcon(R.drawable.ic_launcher_foreground)
                         .setPriority(NotificationCompat.PRIORITY_HIGH)
-                        .setAutoCancel( true )
-                        .setChannelId(NOTIFICATION_CHANNEL_ID);
+                        .setAutoCancel( true );
 
 
         }
 
-        finishScheduling(builder.build());
-    }
-
-
-
-    /**
-    @author: Karley Waguespack
-    Last Modified: 03/24/2021
-
-    Description: gets time from the database and converts to an array of integers
-
-    @params: reminderID: the ID of the reminder
-
-    return value: the array of integers
-     */
-    private int[] getTimeAsInt(ReminderEntity reminder){
-        String timeString = reminder.getTime();
-
-        //splice the time by colons
-        String timeStrings[] = timeString.split(":");
-        //parse each result in the array to an integer
-        int hour = Integer.parseInt(timeStrings[0]);
-        int minute = Integer.parseInt(timeStrings[1]);
-
-        int timeAsIntegers[] = {hour, minute};
-
-        return timeAsIntegers;
-
+        if(NotificationChannels.GROUPS_SUPPORTED){
+            builder.setGroup(NotificationChannels.GROUP_REMINDERS);
+        }
+        return builder.build();
     }
 
-
-
     /**
-    @author: Karley Waguespack
-    Last Modified: 03/11/2021
-
-    Description: gets the date from the database and converts it to an array of integers
-
-    @params: reminderID: the Id of the reminder
-
-    return value: the array of integers
+     * @param typeNotif M, A or E
+     * @param name medication or doctor name, or the type of appointment
+     * @return the body text of a reminder's notification, also used for its line in a group summary
      */
-    private int[] getDateAsInt(ReminderEntity reminder){
-        String dateString = reminder.getDate();
-
-        //splice the date by dashes
-        String dateStrings[] = dateString.split("-");
-        //parse each result in the array to an integer
-        int month = Integer.parseInt(dateStrings[1]) - 1;
-        int day = Integer.parseInt(dateStrings[2]);
-        int year = Integer.parseInt(dateStrings[0]);
-
-        int dateAsIntegers[] = {year, month, day};
-
-        return dateAsIntegers;
+    static String contentText(char typeNotif, String name){
+        switch(typeNotif){
+            case 'M': return "It is time to take your dosage of " + name + "!";
+            case 'A': return "Meet with Dr. " + name + " now!";
+            default: return "You need to do " + name + " right now!";
+        }
     }
 
 
@@ -309,19 +259,9 @@ public class OutOfAppNotifications extends Notifications{
      */
     private Calendar createCalendarObject(ReminderEntity reminder){
 
-        int date[] = getDateAsInt(reminder);
-        int time[] = getTimeAsInt(reminder);
-
         Calendar myCalendar = Calendar.getInstance();
-        Log.d("notif-debug", date[0] + ":" + date[1] + ":" + date[2]);
-        Log.d("notif-debug", time[0] + ":" + time[1]);
-        myCalendar.set(Calendar.MONTH, date[1]);
-        myCalendar.set(Calendar.DAY_OF_MONTH, date[2]);
-        myCalendar.set(Calendar.YEAR, date[0]);
-        myCalendar.set(Calendar.MINUTE, time[1]);
-        myCalendar.set(Calendar.HOUR, time[0]);
-        myCalendar.set(Calendar.SECOND, 0);
-        myCalendar.set(Calendar.MILLISECOND, 0);
+        myCalendar.setTimeInMillis(DateTimeCodec.parse(reminder.getDate(), reminder.getTime()));
+        Log.d("notif-debug", reminder.getDate() + " " + reminder.getTime());
 
         return myCalendar;
     }
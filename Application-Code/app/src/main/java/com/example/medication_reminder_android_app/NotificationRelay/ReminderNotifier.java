@@ -0,0 +1,88 @@
+package com.example.medication_reminder_android_app.NotificationRelay;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.content.Context;
+
+import androidx.core.app.NotificationCompat;
+
+import com.example.medication_reminder_android_app.R;
+import com.example.medication_reminder_android_app.SQLiteDB.ReminderWithTarget;
+
+import java.util.List;
+
+/**
+ * Builds and posts the notifications for reminders when their alarm fires, so they show what is
+ * in the database then rather than what was there when the reminders were scheduled.
+ *
+ * Each reminder always gets the same notification id, so reminders firing together no longer
+ * replace one another and a reminder that fires again replaces its own earlier notification.
+ * When several fire together they are grouped under one InboxStyle summary, on Android N and
+ * later. Before that a grouped reminder would only show as the summary, so each is posted on its own.
+ * Reminders missed while the phone was off always get a summary saying so, even if there is only one.
+ */
+final class ReminderNotifier {
+
+    //reminder primary keys start at 1, so no reminder's id is this
+    private static final int SUMMARY_NOTIFICATION_ID = 0;
+
+    private final Context context;
+
+    ReminderNotifier(Context context){
+        this.context = context;
+    }
+
+    /**
+     * @param reminderId
+     * @return the id the reminder's notification is posted with
+     */
+    static int notificationId(long reminderId){
+        return (int) (reminderId ^ (reminderId >>> 32));
+    }
+
+    /**
+     * Post a notification for each reminder, and a summary if there is more than one and groups are supported
+     * @param reminders loaded with DatabaseRepository.getRemindersWithTarget
+     */
+    void post(List<ReminderWithTarget> reminders){
+        post(reminders, false);
+    }
+
+    /**
+     * Post a notification for each reminder that fell due while the app could not remind of it,
+     * and a summary titled as missed
+     * @param reminders loaded with DatabaseRepository.getRemindersWithTarget
+     */
+    void postMissed(List<ReminderWithTarget> reminders){
+        post(reminders, true);
+    }
+
+    private void post(List<ReminderWithTarget> reminders, boolean missed){
+        NotificationManager notificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
+        if(notificationManager == null || reminders.isEmpty()) return;
+        NotificationCompat.InboxStyle inbox = new NotificationCompat.InboxStyle();
+        String summaryChannel = null;
+        for(ReminderWithTarget reminder : reminders){
+            String[] info = Notifications.toInfoArray(reminder);
+            Notification notification = OutOfAppNotifications.createNotification(context, info);
+            notificationManager.notify(notificationId(reminder.getReminder().getPrimaryKey()), notification);
+            inbox.addLine(OutOfAppNotifications.contentText(info[0].charAt(0), info[1]));
+            if(summaryChannel == null) summaryChannel = NotificationChannels.forType(info[0].charAt(0));
+        }
+        if(missed || (reminders.size() > 1 && NotificationChannels.GROUPS_SUPPORTED)){
+            String title = context.getString(missed ? R.string.reminders_missed_title : R.string.reminders_summary_title,
+                    reminders.size());
+            NotificationCompat.Builder summary = new NotificationCompat.Builder(context, summaryChannel)
+                    .setContentTitle(title)
+                    .setSmallIcon(R.drawable.ic_launcher_foreground)
+                    .setStyle(inbox.setBigContentTitle(title))
+                    .setPriority(NotificationCompat.PRIORITY_HIGH)
+                    .setAutoCancel(true);
+            //before N the missed summary is a notification of its own next to the reminders
+            if(NotificationChannels.GROUPS_SUPPORTED){
+                summary.setGroup(NotificationChannels.GROUP_REMINDERS).setGroupSummary(true);
+            }
+            notificationManager.notify(SUMMARY_NOTIFICATION_ID, summary.build());
+        }
+    }
+}
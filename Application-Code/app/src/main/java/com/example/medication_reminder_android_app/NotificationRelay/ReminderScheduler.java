@@ -0,0 +1,347 @@
+package com.example.medication_reminder_android_app.NotificationRelay;
+
+import android.app.AlarmManager;
+import android.app.Application;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.util.Log;
+
+import com.example.medication_reminder_android_app.SQLiteDB.DatabaseRepository;
+import com.example.medication_reminder_android_app.SQLiteDB.ReminderDue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import io.reactivex.Completable;
+import io.reactivex.schedulers.Schedulers;
+
+/**
+ * Keeps every pending reminder in a set sorted by due time and arms one exact alarm, for the
+ * earliest of them. When the alarm fires NotificationPublisher takes every reminder that is
+ * due and the alarm is armed again for the next one, so any number of reminders costs a single
+ * system alarm.
+ *
+ * Reminders due within the coalescing window of the earliest one are delivered with it, on the
+ * same wakeup, instead of each arming an alarm of its own. A patient with several medications
+ * due around the same time is woken once, at the first of them, and the number of wakeups that
+ * saved compared with one alarm per reminder is counted in getWakeupsSaved. Because the set is
+ * sorted, the batch is read from its head, so scheduling, cancelling or re-arming costs log n plus
+ * the size of the batch however many reminders are queued.
+ *
+ * The alarm only carries the due time and the ids of the reminders it is for. NotificationPublisher
+ * looks them up when it fires, so the system holds a few bytes per alarm and notifications show
+ * what is in the database then.
+ *
+ * The queue lives in memory for the life of the process. When the process starts it is filled
+ * again from ReminderTable with one query on the due_at index, starting after the last reminder
+ * that was delivered so nothing is shown twice. Reminders that fell due while the process was
+ * dead, for instance while the phone was off, are not dropped: those less than MISSED_GRACE_MILLIS
+ * late are queued and delivered at once as usual, older ones are posted together as missed.
+ */
+public final class ReminderScheduler {
+
+    static final String ACTION_REMINDERS_DUE = "com.example.medication_reminder_android_app.REMINDERS_DUE";
+    static final String EXTRA_SCHEDULED_AT = "scheduled-at"; //epoch millis the alarm was set for
+    static final String EXTRA_REMINDER_IDS = "reminder-ids"; //long[] of the reminders it is for, soonest first
+
+    private static final String TAG = "app-scheduler";
+    private static final int ALARM_REQUEST_CODE = 0;
+    private static final long NOT_ARMED = Long.MIN_VALUE;
+    private static final long MISSED_GRACE_MILLIS = 15 * 60 * 1000L; //later than this is posted as missed
+    private static final String PREFERENCES = "reminder_scheduler";
+    private static final long DEFAULT_COALESCING_WINDOW_MILLIS = 5 * 60 * 1000L;
+    private static final String DELIVERED_THROUGH = "delivered_through"; //due time of the last reminder delivered
+    private static final String COALESCING_WINDOW = "coalescing_window";
+    private static final String WAKEUPS_SAVED = "wakeups_saved";
+
+    private static volatile ReminderScheduler INSTANCE;
+
+    private final Context context; //application context
+    private final TreeSet<Entry> queue = new TreeSet<>(); //soonest first
+    private final Map<Long, Entry> entries = new HashMap<>(); //reminder id -> its entry in the queue
+    private final Completable rehydrated;
+    private long armedFor = NOT_ARMED;
+    private long[] armedIds; //reminders the armed alarm carries
+    private long coalescingWindow; //millis
+
+    private ReminderScheduler(Application application){
+        context = application;
+        coalescingWindow = preferences().getLong(COALESCING_WINDOW, DEFAULT_COALESCING_WINDOW_MILLIS);
+        long missedBefore = System.currentTimeMillis() - MISSED_GRACE_MILLIS;
+        //before anything has been delivered there is nothing to catch up on, older reminders were
+        //set before this scheduler was installed and delivered by the alarms of the time
+        long after = deliveredThrough() > 0 ? deliveredThrough() : missedBefore;
+        DatabaseRepository repository = DatabaseRepository.getInstance(application);
+        rehydrated = repository.getRemindersDueAfter(after)
+                .subscribeOn(Schedulers.io())
+                .map(reminders -> addAll(reminders, missedBefore))
+                .doOnSuccess(missed -> postMissed(repository, missed))
+                .ignoreElement()
+                .doOnError(e -> Log.d(TAG, "Could not load reminders", e))
+                .onErrorComplete()
+                .cache();
+        rehydrated.subscribe();
+    }
+
+    /**
+     * The scheduler is created, and starts loading reminders, on first use
+     * @param context
+     * @return
+     */
+    public static ReminderScheduler getInstance(Context context){
+        if(INSTANCE == null){
+            synchronized (ReminderScheduler.class){
+                if(INSTANCE == null){
+                    INSTANCE = new ReminderScheduler((Application) context.getApplicationContext());
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Queue a reminder, replacing the time it was queued for before if there was one
+     * @param reminderId
+     * @param dueAt epoch millis
+     */
+    public synchronized void schedule(long reminderId, long dueAt){
+        Entry entry = new Entry(reminderId, dueAt);
+        Entry replaced = entries.put(reminderId, entry);
+        if(replaced != null) queue.remove(replaced);
+        queue.add(entry);
+        arm();
+    }
+
+    /**
+     * Stop a reminder from being delivered
+     * @param reminderId
+     */
+    public synchronized void cancel(long reminderId){
+        Entry entry = entries.remove(reminderId);
+        if(entry != null){
+            queue.remove(entry);
+            arm();
+        }
+    }
+
+    /**
+     * Stop several reminders from being delivered, arming the alarm once for all of them
+     * @param reminderIds
+     */
+    public synchronized void cancel(Collection<Long> reminderIds){
+        boolean removed = false;
+        for(Long id : reminderIds){
+            Entry entry = entries.remove(id);
+            if(entry != null){
+                queue.remove(entry);
+                removed = true;
+            }
+        }
+        if(removed) arm();
+    }
+
+    /**
+     * @return number of reminders waiting to be delivered
+     */
+    public synchronized int size(){ return entries.size(); }
+
+    /**
+     * Set how far after the earliest due reminder others may be due and still be delivered with it
+     * @param millis 0 to give every distinct due time its own wakeup
+     */
+    public synchronized void setCoalescingWindow(long millis){
+        if(millis < 0) throw new IllegalArgumentException("Coalescing window must not be negative: " + millis);
+        coalescingWindow = millis;
+        preferences().edit().putLong(COALESCING_WINDOW, millis).apply();
+    }
+
+    public synchronized long getCoalescingWindow(){ return coalescingWindow; }
+
+    /**
+     * @return wakeups avoided since the app was installed, counting one per reminder that was
+     * delivered on another reminder's alarm
+     */
+    public long getWakeupsSaved(){
+        return preferences().getLong(WAKEUPS_SAVED, 0);
+    }
+
+    /**
+     * Set the alarm again for the head of the queue even if it looks armed already, for when the
+     * system has dropped or moved it, see RescheduleReceiver
+     */
+    synchronized void rearm(){
+        armedFor = NOT_ARMED;
+        armedIds = null;
+        arm();
+    }
+
+    /**
+     * @return completes once the reminders in the database have been queued
+     */
+    Completable whenRehydrated(){ return rehydrated; }
+
+    /**
+     * Remove every reminder due at or before now, or within the coalescing window after it, from
+     * the queue and arm the alarm for the next one
+     * @param now epoch millis
+     * @return ids of the due reminders, soonest first
+     */
+    synchronized List<Long> takeDue(long now){
+        List<Long> due = new ArrayList<>();
+        long latest = NOT_ARMED;
+        long through = now + coalescingWindow;
+        while(!queue.isEmpty() && queue.first().dueAt <= through){
+            Entry head = queue.pollFirst();
+            entries.remove(head.reminderId);
+            due.add(head.reminderId);
+            latest = head.dueAt;
+        }
+        if(latest != NOT_ARMED){
+            SharedPreferences preferences = preferences();
+            preferences.edit()
+                    .putLong(DELIVERED_THROUGH, latest)
+                    .putLong(WAKEUPS_SAVED, preferences.getLong(WAKEUPS_SAVED, 0) + due.size() - 1)
+                    .apply();
+        }
+        armedFor = NOT_ARMED; //the alarm that called this has fired
+        armedIds = null;
+        arm();
+        return due;
+    }
+
+    /*
+    Runs once on an io thread. Reminders scheduled while the query ran are newer, keep those.
+    Returns the reminders due before missedBefore, soonest first, which are not queued
+     */
+    private synchronized List<ReminderDue> addAll(List<ReminderDue> reminders, long missedBefore){
+        List<ReminderDue> missed = new ArrayList<>();
+        for(ReminderDue r : reminders){
+            if(entries.containsKey(r.getReminderId())) continue;
+            if(r.getDueAt() < missedBefore){
+                missed.add(r);
+            } else {
+                Entry entry = new Entry(r.getReminderId(), r.getDueAt());
+                entries.put(r.getReminderId(), entry);
+                queue.add(entry);
+            }
+        }
+        Log.d(TAG, "Queued " + (reminders.size() - missed.size()) + " reminders from the database, "
+                + missed.size() + " were missed");
+        arm();
+        return missed;
+    }
+
+    /*
+    One batch for every reminder missed while the process was dead, marked delivered once posted
+     */
+    private void postMissed(DatabaseRepository repository, List<ReminderDue> missed){
+        if(missed.isEmpty()) return;
+        long[] ids = new long[missed.size()];
+        for(int i = 0; i < ids.length; i++){
+            ids[i] = missed.get(i).getReminderId();
+        }
+        long latest = missed.get(missed.size() - 1).getDueAt();
+        repository.getRemindersWithTarget(ids)
+                .subscribeOn(Schedulers.io())
+                .subscribe(reminders -> {
+                    new ReminderNotifier(context).postMissed(reminders);
+                    markDeliveredThrough(latest);
+                }, e -> Log.d(TAG, "Could not post missed reminders", e));
+    }
+
+    /*
+    Point the one alarm at the head of the queue, carrying the ids of the reminders it will deliver
+     */
+    private void arm(){
+        Entry head = queue.isEmpty() ? null : queue.first();
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if(alarmManager == null) return;
+        if(head == null){
+            if(armedFor != NOT_ARMED){
+                alarmManager.cancel(alarmIntent(NOT_ARMED, new long[0]));
+                armedFor = NOT_ARMED;
+                armedIds = null;
+            }
+            return;
+        }
+        long[] ids = batchFrom(head);
+        if(head.dueAt == armedFor && Arrays.equals(ids, armedIds)) return;
+        PendingIntent alarmIntent = alarmIntent(head.dueAt, ids);
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.M){
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, head.dueAt, alarmIntent);
+        } else if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT){
+            alarmManager.setExact(AlarmManager.RTC_WAKEUP, head.dueAt, alarmIntent);
+        } else {
+            alarmManager.set(AlarmManager.RTC_WAKEUP, head.dueAt, alarmIntent);
+        }
+        armedFor = head.dueAt;
+        armedIds = ids;
+    }
+
+    //ids of the reminders due within the coalescing window of head, soonest first, read off the
+    //front of the queue
+    private long[] batchFrom(Entry head){
+        long through = head.dueAt + coalescingWindow;
+        List<Long> batch = new ArrayList<>();
+        for(Entry entry : queue){
+            if(entry.dueAt > through) break;
+            batch.add(entry.reminderId);
+        }
+        long[] ids = new long[batch.size()];
+        for(int i = 0; i < ids.length; i++){
+            ids[i] = batch.get(i);
+        }
+        return ids;
+    }
+
+    //same request code and intent every time, so setting it replaces the alarm that was armed before.
+    //The extras are not part of that comparison. They are only the due time and reminder ids, the
+    //notifications are built from the database when the alarm fires
+    private PendingIntent alarmIntent(long scheduledAt, long[] reminderIds){
+        Intent intent = new Intent(context, NotificationPublisher.class)
+                .setAction(ACTION_REMINDERS_DUE)
+                .putExtra(EXTRA_SCHEDULED_AT, scheduledAt)
+                .putExtra(EXTRA_REMINDER_IDS, reminderIds);
+        return PendingIntent.getBroadcast(context, ALARM_REQUEST_CODE, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    private long deliveredThrough(){
+        return preferences().getLong(DELIVERED_THROUGH, 0);
+    }
+
+    private synchronized void markDeliveredThrough(long dueAt){
+        if(dueAt > deliveredThrough()){
+            preferences().edit().putLong(DELIVERED_THROUGH, dueAt).apply();
+        }
+    }
+
+    private SharedPreferences preferences(){
+        return context.getSharedPreferences(PREFERENCES, Context.MODE_PRIVATE);
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final long reminderId;
+        final long dueAt; //epoch millis
+
+        Entry(long reminderId, long dueAt){
+            this.reminderId = reminderId;
+            this.dueAt = dueAt;
+        }
+
+        //Long.compare needs API 19
+        @Override
+        public int compareTo(Entry other){
+            if(dueAt != other.dueAt) return dueAt < other.dueAt ? -1 : 1;
+            if(reminderId != other.reminderId) return reminderId < other.reminderId ? -1 : 1;
+            return 0;
+        }
+    }
+}
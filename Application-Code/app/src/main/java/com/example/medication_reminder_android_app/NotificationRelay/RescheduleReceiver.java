@@ -0,0 +1,43 @@
+package com.example.medication_reminder_android_app.NotificationRelay;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import com.example.medication_reminder_android_app.SQLiteDB.DateTimeCodec;
+
+import io.reactivex.schedulers.Schedulers;
+
+ /*
+    Description: Receiver for the broadcasts that drop or move the ReminderScheduler alarm. The
+    system clears every alarm on reboot and when the app is updated, and a change to the clock or
+    time zone can leave the armed one at the wrong moment, so each of these loads the reminders
+    again if the process is new and points the alarm at the next one
+
+  */
+
+public class RescheduleReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "app-scheduler";
+
+    @Override
+    public void onReceive(Context context, Intent intent){
+        String action = intent.getAction();
+        if(!Intent.ACTION_BOOT_COMPLETED.equals(action) && !Intent.ACTION_TIME_CHANGED.equals(action)
+                && !Intent.ACTION_TIMEZONE_CHANGED.equals(action) && !Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)){
+            return;
+        }
+        if(Intent.ACTION_TIMEZONE_CHANGED.equals(action)){
+            DateTimeCodec.refreshDefaultZone(); //due times of reminders set after this are in the new zone
+        }
+        ReminderScheduler scheduler = ReminderScheduler.getInstance(context.getApplicationContext());
+        //after a reboot the queue is still being loaded from ReminderTable, wait for it to be armed
+        PendingResult result = goAsync();
+        scheduler.whenRehydrated()
+                .subscribeOn(Schedulers.io())
+                .doFinally(result::finish)
+                .subscribe(scheduler::rearm, e -> Log.d(TAG, "Could not re-arm the reminder alarm", e));
+    }
+
+}
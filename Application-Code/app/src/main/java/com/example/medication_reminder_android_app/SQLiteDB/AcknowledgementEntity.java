@@ -0,0 +1,45 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * One row per dose taken. Rows are only ever appended, so taking a dose is a single insert
+ * no matter how long the history for the medication is.
+ */
+@Entity(tableName = "AcknowledgementTable",
+        foreignKeys = {@ForeignKey(entity = MedicationEntity.class, parentColumns = "primaryKey",
+                childColumns = "med_id", onDelete = ForeignKey.CASCADE)},
+        indices = {@Index(value = {"med_id", "taken_at"})})
+public class AcknowledgementEntity {
+    @PrimaryKey(autoGenerate = true)
+    private long primaryKey;
+
+    @ColumnInfo(name = "med_id")
+    private long medId; //primary key of the medication that was taken
+
+    @ColumnInfo(name = "taken_at")
+    private long takenAt; //epoch millis
+
+    public AcknowledgementEntity(long medId, long takenAt){
+        this.medId = medId;
+        this.takenAt = takenAt;
+    }
+
+    //getters
+    public long getPrimaryKey() { return this.primaryKey; }
+
+    public long getMedId() { return this.medId; }
+
+    public long getTakenAt() { return this.takenAt; }
+
+    //setters
+    public void setPrimaryKey(long primaryKey) { this.primaryKey = primaryKey; }
+
+    public void setMedId(long medId) { this.medId = medId; }
+
+    public void setTakenAt(long takenAt) { this.takenAt = takenAt; }
+}
@@ -0,0 +1,31 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * How many of a medication's doses in a window were scheduled, taken and skipped.
+ * Doses neither taken nor skipped are still pending or were missed.
+ */
+public class AdherenceCount {
+    @ColumnInfo(name = "scheduled")
+    private final int scheduled;
+
+    @ColumnInfo(name = "taken")
+    private final int taken;
+
+    @ColumnInfo(name = "skipped")
+    private final int skipped;
+
+    public AdherenceCount(int scheduled, int taken, int skipped){
+        this.scheduled = scheduled;
+        this.taken = taken;
+        this.skipped = skipped;
+    }
+
+    //getters
+    public int getScheduled() { return this.scheduled; }
+
+    public int getTaken() { return this.taken; }
+
+    public int getSkipped() { return this.skipped; }
+}
@@ -8,6 +8,7 @@ import androidx.room.DatabaseConfiguration;
 import androidx.room.InvalidationTracker;
 import androidx.room.RoomDatabase;
 import androidx.room.Room;
+import androidx.room.TypeConverters;
 import androidx.sqlite.db.SupportSQLiteDatabase;
 import androidx.sqlite.db.SupportSQLiteOpenHelper;
 
@@ -21,7 +22,11 @@ import androidx.sqlite.db.SupportSQLiteOpenHelper;
 //If need to change/update db and inc version w/out losing all old data:
 // https://synetech.cz/en/blog/how-to-migrate-room-database-painlessly-en
 
-@Database(entities = {MedicationEntity.class, DoctorEntity.class, AppointmentEntity.class, ReminderEntity.class}, version = 2, exportSchema = false)
+@Database(entities = {MedicationEntity.class, DoctorEntity.class, AppointmentEntity.class, ReminderEntity.class,
+        AcknowledgementEntity.class, MedicationTagEntity.class, MedicationFts.class, DoctorFts.class,
+        AppointmentFts.class, MedicationStateEntity.class, DoseOccurrenceEntity.class,
+        FireDriftEntity.class, FdaLabelCacheEntity.class}, version = 11, exportSchema = false)
+@TypeConverters({DateConverters.class})
 public abstract class AppDatabase extends RoomDatabase {
 
     public abstract DataAccessObject dataAccessObject();
@@ -33,8 +38,10 @@ public abstract class AppDatabase extends RoomDatabase {
             synchronized (AppDatabase.class){
                 if(INSTANCE == null){
                     INSTANCE = Room.databaseBuilder(context.getApplicationContext(), AppDatabase.class, "app_database")
-                            .fallbackToDestructiveMigration() //This deletes all data in old tables if change the version number.
+                            .addMigrations(DatabaseMigrations.all())
+                            .fallbackToDestructiveMigration() //This deletes all data in old tables if no migration is found for the version change.
                             .build();
+                    InvalidationCounter.register(INSTANCE);
                 }
             }
         }
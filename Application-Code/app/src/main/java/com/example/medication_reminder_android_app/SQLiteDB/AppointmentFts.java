@@ -0,0 +1,38 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full text index over the searchable columns of AppointmentTable.
+ * Room keeps it in sync with AppointmentTable through triggers.
+ */
+@Fts4(contentEntity = AppointmentEntity.class)
+@Entity(tableName = "AppointmentFts")
+public class AppointmentFts {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowId; //same as the primary key of the row in AppointmentTable
+
+    @ColumnInfo(name = "Notes")
+    private String notes;
+
+    @ColumnInfo(name = "TypeOfAppt")
+    private String typeOfAppt;
+
+    //getters
+    public long getRowId() { return this.rowId; }
+
+    public String getNotes() { return this.notes; }
+
+    public String getTypeOfAppt() { return this.typeOfAppt; }
+
+    //setters
+    public void setRowId(long rowId) { this.rowId = rowId; }
+
+    public void setNotes(String notes) { this.notes = notes; }
+
+    public void setTypeOfAppt(String typeOfAppt) { this.typeOfAppt = typeOfAppt; }
+}
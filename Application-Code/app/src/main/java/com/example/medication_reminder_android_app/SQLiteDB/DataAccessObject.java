@@ -4,16 +4,22 @@ package com.example.medication_reminder_android_app.SQLiteDB;
 Data Access Object (DAO) for all entities
  */
 
+import android.util.Log;
+
 import androidx.lifecycle.LiveData;
+import androidx.paging.DataSource;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
+import java.util.Date;
 import java.util.List;
 
+import io.reactivex.Maybe;
 import io.reactivex.Single;
 
 /**
@@ -24,6 +30,14 @@ import io.reactivex.Single;
 @Dao
 public interface DataAccessObject {
 
+    //reminders and the name of what each is for. Each join is a primary key lookup
+    String REMINDER_WITH_TARGET = "SELECT ReminderTable.*, MedicationTable.med_name AS target_med_name, "
+            + "DoctorTable.doctor_name AS target_doctor_name, AppointmentTable.TypeOfAppt AS target_appt_type "
+            + "FROM ReminderTable "
+            + "LEFT JOIN MedicationTable ON ReminderTable.Classification = 'M' AND MedicationTable.primaryKey = ReminderTable.MedApptID "
+            + "LEFT JOIN AppointmentTable ON ReminderTable.Classification = 'A' AND AppointmentTable.primaryKey = ReminderTable.MedApptID "
+            + "LEFT JOIN DoctorTable ON DoctorTable.primaryKey = AppointmentTable.DoctorTableID ";
+
     //Queries on MedicationEntity
 
     /**
@@ -35,13 +49,25 @@ public interface DataAccessObject {
     public long insertMedication(MedicationEntity medication);
 
     /**
-     * @author Hayley Roberts
-     * selecs any medications that have the inputted tag
-     * @param likeTags
+     * selects medications that have at least one of the tags
+     * @param tags normalized tags, see MedicationTagEntity.normalize
      * @return
      */
-    @Query("SELECT * FROM MedicationTable WHERE :likeTags")
-    public LiveData<List<MedicationEntity>> loadFilteredMedications(String likeTags);
+    @Query("SELECT DISTINCT MedicationTable.* FROM MedicationTagTable "
+            + "INNER JOIN MedicationTable ON MedicationTable.primaryKey = MedicationTagTable.med_id "
+            + "WHERE MedicationTagTable.tag IN (:tags)")
+    public LiveData<List<MedicationEntity>> loadMedicationsWithAnyTag(List<String> tags);
+
+    /**
+     * selects medications that have every one of the tags
+     * @param tags distinct normalized tags, see MedicationTagEntity.normalize
+     * @param tagCount number of tags in the list
+     * @return
+     */
+    @Query("SELECT MedicationTable.* FROM MedicationTable "
+            + "INNER JOIN (SELECT med_id FROM MedicationTagTable WHERE tag IN (:tags) GROUP BY med_id HAVING COUNT(*) = :tagCount) AS matches "
+            + "ON MedicationTable.primaryKey = matches.med_id")
+    public LiveData<List<MedicationEntity>> loadMedicationsWithAllTags(List<String> tags, int tagCount);
 
     /**
      * @auhor Hayley Roberts
@@ -50,6 +76,23 @@ public interface DataAccessObject {
     @Query("SELECT * FROM MedicationTable")
     public LiveData<List<MedicationEntity>> getAllMeds();
 
+    /**
+     * All medications, read on the calling thread. For use inside writer transactions
+     * @return
+     */
+    @Query("SELECT * FROM MedicationTable")
+    public List<MedicationEntity> getAllMedsNow();
+
+    /**
+     * All medications, paged for the medication list.
+     * Only the columns the list shows are read, see MedicationSummary. The query reads
+     * MedicationTable alone, so acknowledgements do not invalidate it
+     * @return
+     */
+    @Query("SELECT MedicationTable.primaryKey, med_name, dosage FROM MedicationTable "
+            + "ORDER BY MedicationTable.primaryKey")
+    public DataSource.Factory<Integer, MedicationSummary> pageAllMeds();
+
     /**
      * @author Hayley Roberts
      * Get medication by Name
@@ -68,21 +111,43 @@ public interface DataAccessObject {
     public Single<MedicationEntity> getMedicationById(long pk);
 
     /**
-     * @author Hayley Roberts
+     * A medication by primary key, read on the calling thread. For use inside writer transactions
      * @param pk
-     * @param a
+     * @return null if there is none
      */
-    @Query("UPDATE MedicationTable SET acknowledgements = :a WHERE primarykey LIKE :pk")
-    public void updateAcknowledgements(long pk, String a);
+    @Query("SELECT * FROM MedicationTable WHERE primaryKey = :pk")
+    public MedicationEntity getMedicationNow(long pk);
 
     /**
      * @author Hayley Roberts
      * @param medPK
      * @param reminderPK
      */
-    @Query("UPDATE MedicationTable SET reminder_id = :reminderPK WHERE primarykey LIKE :medPK")
+    @Query("UPDATE MedicationStateTable SET reminder_id = :reminderPK WHERE med_id = :medPK")
     public void addReminderID(long medPK, long reminderPK);
 
+    /**
+     * Creates the state row of a new medication, does nothing if it already has one
+     * @param state
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    public void insertMedicationState(MedicationStateEntity state);
+
+    /**
+     * Moves a medication's last taken time forward, never backward
+     * @param medId
+     * @param takenAt epoch millis
+     */
+    @Query("UPDATE MedicationStateTable SET last_taken_at = MAX(IFNULL(last_taken_at, 0), :takenAt) WHERE med_id = :medId")
+    public void updateLastTakenAt(long medId, long takenAt);
+
+    /**
+     * @param medId
+     * @return the state row of a medication
+     */
+    @Query("SELECT * FROM MedicationStateTable WHERE med_id = :medId")
+    public Single<MedicationStateEntity> getMedicationState(long medId);
+
     //Deletions
 
     /**
@@ -111,6 +176,220 @@ public interface DataAccessObject {
 
 
 
+    //Full text search
+
+    /**
+     * Medications whose name, warnings or ingredients match a full text query
+     * @param query FTS MATCH expression, see FullTextSearch.toMatchQuery
+     * @param limit
+     * @return
+     */
+    @Query("SELECT rowid AS rowId, med_name AS title, matchinfo(MedicationFts, 'pcx') AS matchInfo "
+            + "FROM MedicationFts WHERE MedicationFts MATCH :query LIMIT :limit")
+    public List<FtsMatch> matchMedications(String query, int limit);
+
+    /**
+     * Doctors whose name, hospital or office location match a full text query
+     * @param query FTS MATCH expression, see FullTextSearch.toMatchQuery
+     * @param limit
+     * @return
+     */
+    @Query("SELECT rowid AS rowId, doctor_name AS title, matchinfo(DoctorFts, 'pcx') AS matchInfo "
+            + "FROM DoctorFts WHERE DoctorFts MATCH :query LIMIT :limit")
+    public List<FtsMatch> matchDoctors(String query, int limit);
+
+    /**
+     * Appointments whose notes or type match a full text query
+     * @param query FTS MATCH expression, see FullTextSearch.toMatchQuery
+     * @param limit
+     * @return
+     */
+    @Query("SELECT rowid AS rowId, TypeOfAppt AS title, matchinfo(AppointmentFts, 'pcx') AS matchInfo "
+            + "FROM AppointmentFts WHERE AppointmentFts MATCH :query LIMIT :limit")
+    public List<FtsMatch> matchAppointments(String query, int limit);
+
+    /**
+     * Medications matching a full text query, paged for the medication list
+     * @param query FTS MATCH expression, see FullTextSearch.toMatchQuery
+     * @return
+     */
+    @Query("SELECT MedicationTable.primaryKey, med_name, dosage FROM MedicationTable "
+            + "INNER JOIN MedicationFts ON MedicationTable.primaryKey = MedicationFts.rowid "
+            + "WHERE MedicationFts MATCH :query ORDER BY MedicationTable.primaryKey")
+    public DataSource.Factory<Integer, MedicationSummary> pageSearchMedications(String query);
+
+
+
+
+
+    //Queries on MedicationTagEntity
+
+    /**
+     * @param tags
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    public void insertTags(List<MedicationTagEntity> tags);
+
+
+
+
+
+    //Queries on AcknowledgementEntity
+
+    /**
+     * @param acknowledgement
+     * @return primary key of the acknowledgement
+     */
+    @Insert
+    public long insertAcknowledgement(AcknowledgementEntity acknowledgement);
+
+    /**
+     * Acknowledgements for a medication in the window [from, to), oldest first
+     * @param medId
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return
+     */
+    @Query("SELECT * FROM AcknowledgementTable WHERE med_id = :medId AND taken_at >= :from AND taken_at < :to ORDER BY taken_at")
+    public Single<List<AcknowledgementEntity>> getAcknowledgementsBetween(long medId, long from, long to);
+
+    /**
+     * The most recent acknowledgements for a medication, newest first
+     * @param medId
+     * @param limit
+     * @return
+     */
+    @Query("SELECT * FROM AcknowledgementTable WHERE med_id = :medId ORDER BY taken_at DESC LIMIT :limit")
+    public LiveData<List<AcknowledgementEntity>> getRecentAcknowledgements(long medId, int limit);
+
+
+
+
+
+    //Queries on DoseOccurrenceEntity
+
+    /**
+     * Occurrences already generated are left alone
+     * @param occurrences
+     */
+    @Insert(onConflict = OnConflictStrategy.IGNORE)
+    public void insertDoseOccurrences(List<DoseOccurrenceEntity> occurrences);
+
+    /**
+     * @param medId
+     * @return due time of the latest occurrence generated for a medication, null if there are none
+     */
+    @Query("SELECT MAX(due_at) FROM DoseOccurrenceTable WHERE med_id = :medId")
+    public Long getLastOccurrenceDueAt(long medId);
+
+    /**
+     * One seek on the (med_id, due_at) index
+     * @param medId
+     * @param after epoch millis
+     * @return due time of the first occurrence generated for a medication after a time, null if none was generated that far
+     */
+    @Query("SELECT MIN(due_at) FROM DoseOccurrenceTable WHERE med_id = :medId AND due_at > :after")
+    public Long getNextOccurrenceAfter(long medId, long after);
+
+    /**
+     * Acknowledge or dismiss a medication reminder and move it on to its next dose, atomically.
+     * The acknowledgement, the dose's status and the reminder's new due time are written together,
+     * and the reminder is read inside the same transaction, so concurrent taps cannot both advance
+     * from the same dose. The caller passes the due time of the dose it is acknowledging, and if the
+     * reminder has moved on since, a second tap on the same notification, nothing is written.
+     *
+     * Occurrences are topped up to the horizon first, as a patient who only answers notifications
+     * never opens the screens that top them up otherwise.
+     *
+     * The next due time is the first generated dose occurrence after the acknowledged one, or after
+     * now if doses were missed while the notification went unanswered. It falls back to the
+     * medication's time rule if occurrences have not been generated that far.
+     * @param reminderId
+     * @param expectedDueAt the reminder's due_at when its notification was posted
+     * @param dismissed true if the dose was skipped
+     * @param now epoch millis
+     * @return when the reminder is next due, its current due time if it was already acknowledged
+     * past expectedDueAt, TimeRuleSchedule.NONE if it is not due again, is not a medication
+     * reminder or does not exist
+     */
+    @Transaction
+    default long acknowledgeReminder(long reminderId, long expectedDueAt, boolean dismissed, long now){
+        ReminderEntity r = getReminderNow(reminderId);
+        if(r == null || !"M".equals(r.getClassification())) return TimeRuleSchedule.NONE;
+        if(r.getDueAtEpochMillis() != expectedDueAt) return r.getDueAtEpochMillis(); //already acknowledged
+        MedicationEntity m = getMedicationNow(r.getMedApptId());
+        if(m == null) return TimeRuleSchedule.NONE;
+        //the app may not have been opened for longer than the horizon; make sure the dose being
+        //acknowledged and the next one have rows before they are looked up and marked
+        DoseOccurrenceGenerator.topUp(this, m, now);
+
+        long due = r.getDueAtEpochMillis();
+        long next = TimeRuleSchedule.NONE;
+        try {
+            if(due <= 0) due = DateTimeCodec.parse(r.getDate(), r.getTime());
+            long after = Math.max(due, now);
+            TimeRuleSchedule schedule = TimeRuleSchedule.forMedication(m);
+            Long generated = getNextOccurrenceAfter(m.getPrimaryKey(), after);
+            next = generated != null ? generated : schedule.nextAfter(after);
+            if(next == TimeRuleSchedule.NONE){
+                deleteReminderById(reminderId); //past end_date, nothing left to remind about
+            } else {
+                int intervals = schedule.intervalCount();
+                int lastIndex = r.getTimeIntervalIndex() == null ? 0 : r.getTimeIntervalIndex();
+                int intervalIndex = intervals == 0 ? 0 : (lastIndex + 1) % intervals;
+                updateDateAndTime(reminderId, DateTimeCodec.formatDate(next), DateTimeCodec.formatTime(next), intervalIndex, next);
+            }
+        } catch(IllegalArgumentException e){
+            Log.d("app-schedule", "Could not reschedule reminder " + reminderId, e); //the acknowledgement is still recorded
+        }
+
+        if(!dismissed){
+            insertAcknowledgement(new AcknowledgementEntity(m.getPrimaryKey(), now));
+            updateLastTakenAt(m.getPrimaryKey(), now);
+        }
+        if(due > 0){
+            updateDoseOccurrence(m.getPrimaryKey(), due, dismissed ? DoseOccurrenceEntity.SKIPPED : DoseOccurrenceEntity.TAKEN, now);
+        }
+        return next;
+    }
+
+    /**
+     * Record that a dose was taken or skipped
+     * @param medId
+     * @param dueAt epoch millis the dose was due
+     * @param status DoseOccurrenceEntity.TAKEN or SKIPPED
+     * @param actedAt epoch millis
+     * @return number of occurrences updated, 0 if the dose was never generated
+     */
+    @Query("UPDATE DoseOccurrenceTable SET status = :status, acted_at = :actedAt WHERE med_id = :medId AND due_at = :dueAt")
+    public int updateDoseOccurrence(long medId, long dueAt, int status, long actedAt);
+
+    /**
+     * Doses of every medication due in the window [from, to), soonest first
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return
+     */
+    @Query("SELECT * FROM DoseOccurrenceTable WHERE due_at >= :from AND due_at < :to ORDER BY due_at")
+    public Single<List<DoseOccurrenceEntity>> getDoseOccurrencesBetween(long from, long to);
+
+    /**
+     * Adherence of a medication over the window [from, to)
+     * @param medId
+     * @param from epoch millis, inclusive
+     * @param to epoch millis, exclusive
+     * @return
+     */
+    @Query("SELECT COUNT(*) AS scheduled, "
+            + "IFNULL(SUM(status = " + DoseOccurrenceEntity.TAKEN + "), 0) AS taken, "
+            + "IFNULL(SUM(status = " + DoseOccurrenceEntity.SKIPPED + "), 0) AS skipped "
+            + "FROM DoseOccurrenceTable WHERE med_id = :medId AND due_at >= :from AND due_at < :to")
+    public Single<AdherenceCount> getAdherence(long medId, long from, long to);
+
+
+
+
+
     //Queries on ReminderEntity
 
     /**
@@ -139,24 +418,139 @@ public interface DataAccessObject {
     @Query("SELECT * FROM ReminderTable WHERE rowid LIKE :primaryKey")
     public Single<ReminderEntity> getReminder(long primaryKey);
 
+    /**
+     * A reminder by primary key, read on the calling thread. For use inside writer transactions
+     * @param primaryKey
+     * @return null if there is none
+     */
+    @Query("SELECT * FROM ReminderTable WHERE primaryKey = :primaryKey")
+    public ReminderEntity getReminderNow(long primaryKey);
+
+    /**
+     * A reminder and the name of what it is for, in one statement. Each join is a primary key lookup
+     * @param primaryKey
+     * @return
+     */
+    @Query(REMINDER_WITH_TARGET + "WHERE ReminderTable.primaryKey = :primaryKey")
+    public Single<ReminderWithTarget> getReminderWithTarget(long primaryKey);
+
+    /**
+     * Several reminders and what each is for, in one statement. Reminders that no longer exist are left out
+     * @param primaryKeys
+     * @return
+     */
+    @Query(REMINDER_WITH_TARGET + "WHERE ReminderTable.primaryKey IN (:primaryKeys) ORDER BY ReminderTable.due_at_epoch_millis")
+    public Single<List<ReminderWithTarget>> getRemindersWithTarget(long[] primaryKeys);
+
     /**
      * @author Hayley Roberts
      * in-app and out-of-app notifs need diff num of reminders
      * @param numberOfReminders
      * @return
      */
-    @Query("SELECT * FROM ReminderTable ORDER BY ApptDate, ApptTime LIMIT :numberOfReminders")
+    @Query("SELECT * FROM ReminderTable ORDER BY due_at_epoch_millis LIMIT :numberOfReminders")
     public Single<ReminderEntity[]> selectNextReminders(int numberOfReminders);
 
+    /**
+     * Reminders due at or after a time, soonest first. Reads the due_at index instead of sorting the table.
+     * @param from
+     * @param numberOfReminders
+     * @return
+     */
+    @Query("SELECT * FROM ReminderTable WHERE due_at_epoch_millis >= :from ORDER BY due_at_epoch_millis LIMIT :numberOfReminders")
+    public Single<ReminderEntity[]> selectRemindersDueAfter(Date from, int numberOfReminders);
+
+    /**
+     * Every reminder due after a time, soonest first. Only reads the due_at index, which holds the primary key too
+     * @param after epoch millis
+     * @return
+     */
+    @Query("SELECT primaryKey AS reminder_id, due_at_epoch_millis AS due_at FROM ReminderTable "
+            + "WHERE due_at_epoch_millis > :after ORDER BY due_at_epoch_millis")
+    public Single<List<ReminderDue>> getRemindersDueAfter(long after);
+
+    //FDA label enrichment
+
+    /**
+     * @param limit
+     * @return named medications whose FDA label has not been looked up yet, oldest first
+     */
+    @Query("SELECT * FROM MedicationTable WHERE fda_checked_at = 0 AND med_name IS NOT NULL AND med_name != '' "
+            + "ORDER BY primaryKey LIMIT :limit")
+    public Single<List<MedicationEntity>> getUnenrichedMedications(int limit);
+
+    /**
+     * Fill in what the FDA label says about a medication. Warnings and ingredients the user
+     * entered are kept
+     * @param medId
+     * @param warnings
+     * @param ingredients
+     * @param purpose
+     * @param checkedAt epoch millis
+     */
+    @Query("UPDATE MedicationTable SET "
+            + "warnings = CASE WHEN warnings IS NULL OR warnings = '' THEN :warnings ELSE warnings END, "
+            + "ingredients = CASE WHEN ingredients IS NULL OR ingredients = '' THEN :ingredients ELSE ingredients END, "
+            + "purpose = :purpose, fda_checked_at = :checkedAt WHERE primaryKey = :medId")
+    public void setFdaLabel(long medId, String warnings, String ingredients, String purpose, long checkedAt);
+
+    //openFDA label cache
+
+    /**
+     * @param query normalized search text
+     * @return the cached results of a search, empty if it was never cached
+     */
+    @Query("SELECT * FROM FdaLabelCache WHERE `query` = :query")
+    public Maybe<FdaLabelCacheEntity> getFdaLabelCache(String query);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    public void insertFdaLabelCache(FdaLabelCacheEntity entry);
+
+    /**
+     * Drop cached searches fetched before a time, and all but the keep most recently fetched
+     * @param before epoch millis
+     * @param keep
+     * @return number of searches dropped
+     */
+    @Query("DELETE FROM FdaLabelCache WHERE fetched_at < :before OR `query` NOT IN "
+            + "(SELECT `query` FROM FdaLabelCache ORDER BY fetched_at DESC LIMIT :keep)")
+    public int pruneFdaLabelCache(long before, int keep);
+
+    //Fire drift
+
+    @Insert
+    public long insertFireDrift(FireDriftEntity drift);
+
+    /**
+     * Delete all but the newest samples
+     * @param keep number of samples to keep
+     */
+    @Query("DELETE FROM FireDriftTable WHERE primaryKey <= (SELECT MAX(primaryKey) FROM FireDriftTable) - :keep")
+    public void trimFireDrift(int keep);
+
+    @Query("SELECT COUNT(*) FROM FireDriftTable")
+    public int countFireDrift();
+
+    /**
+     * @param offset position in drift order, 0 for the smallest
+     * @return the drift at that position, read from the drift_millis index
+     */
+    @Query("SELECT drift_millis FROM FireDriftTable ORDER BY drift_millis LIMIT 1 OFFSET :offset")
+    public long getFireDriftAt(int offset);
+
+    @Query("SELECT COUNT(*) FROM FireDriftTable WHERE drift_millis > :millis")
+    public int countFireDriftOver(long millis);
+
     /**
      * @author Hayley Roberts
      * @param primaryKey
      * @param date
      * @param time
      * @param timeInterval
+     * @param dueAt date and time as epoch millis
      */
-    @Query("UPDATE ReminderTable SET ApptDate = :date, ApptTime = :time, TimeInterval = :timeInterval WHERE rowid LIKE :primaryKey")
-    public void updateDateAndTime(long primaryKey, String date, String time, int timeInterval);
+    @Query("UPDATE ReminderTable SET ApptDate = :date, ApptTime = :time, TimeInterval = :timeInterval, due_at_epoch_millis = :dueAt WHERE rowid LIKE :primaryKey")
+    public void updateDateAndTime(long primaryKey, String date, String time, int timeInterval, long dueAt);
 
     /**
      * @author Hayley Roberts
@@ -173,6 +567,49 @@ public interface DataAccessObject {
     @Query("DELETE FROM ReminderTable WHERE primaryKey LIKE :pk")
     public void deleteReminderById(long pk);
 
+    /**
+     * @param medId
+     * @return number of reminders deleted
+     */
+    @Query("DELETE FROM ReminderTable WHERE MedApptID = :medId AND Classification = 'M'")
+    public int deleteMedicationReminders(long medId);
+
+    /**
+     * @param medId
+     * @return ids of the reminders deleteMedicationReminders would delete, so their alarms can be cancelled
+     */
+    @Query("SELECT primaryKey FROM ReminderTable WHERE MedApptID = :medId AND Classification = 'M'")
+    public List<Long> getMedicationReminderIdsNow(long medId);
+
+    /**
+     * Delete the reminders of the medications deleteMedicationByName matches
+     * @param medName
+     * @return number of reminders deleted
+     */
+    @Query("DELETE FROM ReminderTable WHERE Classification = 'M' AND MedApptID IN " +
+            "(SELECT primaryKey FROM MedicationTable WHERE med_name LIKE :medName)")
+    public int deleteMedicationRemindersByName(String medName);
+
+    /**
+     * @param medName
+     * @return ids of the reminders deleteMedicationRemindersByName would delete
+     */
+    @Query("SELECT primaryKey FROM ReminderTable WHERE Classification = 'M' AND MedApptID IN " +
+            "(SELECT primaryKey FROM MedicationTable WHERE med_name LIKE :medName)")
+    public List<Long> getMedicationReminderIdsByNameNow(String medName);
+
+    /**
+     * @return ids of the reminders deleteAllMedicationReminders would delete
+     */
+    @Query("SELECT primaryKey FROM ReminderTable WHERE Classification like 'M'")
+    public List<Long> getAllMedicationReminderIdsNow();
+
+    /**
+     * @return ids of every reminder
+     */
+    @Query("SELECT primaryKey FROM ReminderTable")
+    public List<Long> getAllReminderIdsNow();
+
     /**
      * @author Hayley Roberts
      * @return
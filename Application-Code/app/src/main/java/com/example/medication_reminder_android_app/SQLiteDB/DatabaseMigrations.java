@@ -0,0 +1,252 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import android.database.Cursor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+/**
+ * Migrations between versions of AppDatabase. Each one has to leave the tables exactly as Room
+ * would create them from the entities of the new version.
+ */
+final class DatabaseMigrations {
+
+    private DatabaseMigrations(){}
+
+    /**
+     * @return every migration, to pass to the database builder
+     */
+    static Migration[] all(){
+        return new Migration[]{MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11};
+    }
+
+    /**
+     * Version 3: ReminderTable gets an indexed due_at_epoch_millis column, backfilled from the
+     * ApptDate and ApptTime strings
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db){
+            db.execSQL("ALTER TABLE `ReminderTable` ADD COLUMN `due_at_epoch_millis` INTEGER NOT NULL DEFAULT 0");
+
+            Cursor cursor = db.query("SELECT `primaryKey`, `ApptDate`, `ApptTime` FROM `ReminderTable`");
+            try {
+                while(cursor.moveToNext()){
+                    long dueAt;
+                    try {
+                        dueAt = DateConverters.toEpochMillis(cursor.getString(1), cursor.getString(2));
+                    } catch(IllegalArgumentException e){
+                        Log.d("app-debug", "Could not backfill reminder " + cursor.getLong(0), e);
+                        continue; //left at 0 so it sorts first and gets noticed
+                    }
+                    db.execSQL("UPDATE `ReminderTable` SET `due_at_epoch_millis` = ? WHERE `primaryKey` = ?",
+                            new Object[]{dueAt, cursor.getLong(0)});
+                }
+            } finally {
+                cursor.close();
+            }
+
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_ReminderTable_due_at_epoch_millis_Classification` "
+                    + "ON `ReminderTable` (`due_at_epoch_millis`, `Classification`)");
+        }
+    };
+
+    /**
+     * Version 4: acknowledgements move from the comma joined string in MedicationTable to one row
+     * each in AcknowledgementTable
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db){
+            db.execSQL("CREATE TABLE IF NOT EXISTS `AcknowledgementTable` (`primaryKey` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`med_id` INTEGER NOT NULL, `taken_at` INTEGER NOT NULL, "
+                    + "FOREIGN KEY(`med_id`) REFERENCES `MedicationTable`(`primaryKey`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_AcknowledgementTable_med_id_taken_at` "
+                    + "ON `AcknowledgementTable` (`med_id`, `taken_at`)");
+
+            Cursor cursor = db.query("SELECT `primaryKey`, `acknowledgements` FROM `MedicationTable` "
+                    + "WHERE `acknowledgements` IS NOT NULL AND `acknowledgements` != ''");
+            try {
+                while(cursor.moveToNext()){
+                    long medId = cursor.getLong(0);
+                    for(String ack : cursor.getString(1).split(",")){
+                        String[] dateTime = ack.trim().split(" ");
+                        if(dateTime.length != 2){
+                            continue; //the old list could hold empty entries
+                        }
+                        try {
+                            long takenAt = DateConverters.toEpochMillis(dateTime[0], dateTime[1]);
+                            db.execSQL("INSERT INTO `AcknowledgementTable` (`med_id`, `taken_at`) VALUES (?, ?)",
+                                    new Object[]{medId, takenAt});
+                        } catch(IllegalArgumentException e){
+                            Log.d("app-debug", "Dropping unreadable acknowledgement " + ack, e);
+                        }
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+
+            db.execSQL("UPDATE `MedicationTable` SET `acknowledgements` = ''");
+        }
+    };
+
+    /**
+     * Version 5: tags get their own MedicationTagTable, filled by splitting MedicationTable.tags
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db){
+            db.execSQL("CREATE TABLE IF NOT EXISTS `MedicationTagTable` (`med_id` INTEGER NOT NULL, `tag` TEXT NOT NULL, "
+                    + "PRIMARY KEY(`med_id`, `tag`), "
+                    + "FOREIGN KEY(`med_id`) REFERENCES `MedicationTable`(`primaryKey`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_MedicationTagTable_tag_med_id` "
+                    + "ON `MedicationTagTable` (`tag`, `med_id`)");
+
+            Cursor cursor = db.query("SELECT `primaryKey`, `tags` FROM `MedicationTable` WHERE `tags` IS NOT NULL AND `tags` != ''");
+            try {
+                while(cursor.moveToNext()){
+                    long medId = cursor.getLong(0);
+                    for(String tag : MedicationTagEntity.parse(cursor.getString(1))){
+                        db.execSQL("INSERT OR IGNORE INTO `MedicationTagTable` (`med_id`, `tag`) VALUES (?, ?)",
+                                new Object[]{medId, tag});
+                    }
+                }
+            } finally {
+                cursor.close();
+            }
+        }
+    };
+
+    /**
+     * Version 6: FTS4 indexes over MedicationTable, DoctorTable and AppointmentTable, built from
+     * the rows already in those tables
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db){
+            createContentFtsTable(db, "MedicationFts", "MedicationTable", "med_name", "warnings", "ingredients");
+            createContentFtsTable(db, "DoctorFts", "DoctorTable", "doctor_name", "hospital_name", "office_location");
+            createContentFtsTable(db, "AppointmentFts", "AppointmentTable", "Notes", "TypeOfAppt");
+        }
+    };
+
+    /**
+     * Version 7: reminder_id and the unused acknowledgements column move out of MedicationTable.
+     * reminder_id and the last taken time are kept in MedicationStateTable so writing them does not
+     * invalidate queries on MedicationTable
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db){
+            db.execSQL("CREATE TABLE IF NOT EXISTS `MedicationStateTable` (`med_id` INTEGER NOT NULL, "
+                    + "`reminder_id` INTEGER NOT NULL, `last_taken_at` INTEGER, PRIMARY KEY(`med_id`), "
+                    + "FOREIGN KEY(`med_id`) REFERENCES `MedicationTable`(`primaryKey`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("INSERT INTO `MedicationStateTable` (`med_id`, `reminder_id`, `last_taken_at`) "
+                    + "SELECT `primaryKey`, `reminder_id`, (SELECT MAX(`taken_at`) FROM `AcknowledgementTable` "
+                    + "WHERE `med_id` = `MedicationTable`.`primaryKey`) FROM `MedicationTable`");
+
+            //SQLite cannot drop columns, so copy into a table without them. Foreign keys are not
+            //enforced yet while migrating, so dropping the old table does not cascade
+            db.execSQL("CREATE TABLE IF NOT EXISTS `MedicationTable_new` (`primaryKey` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`med_name` TEXT, `dosage` TEXT, `recurring` INTEGER, `first_date` TEXT, `end_date` TEXT, "
+                    + "`time_rule` TEXT, `warnings` TEXT, `ingredients` TEXT, `tags` TEXT)");
+            db.execSQL("INSERT INTO `MedicationTable_new` (`primaryKey`, `med_name`, `dosage`, `recurring`, `first_date`, "
+                    + "`end_date`, `time_rule`, `warnings`, `ingredients`, `tags`) SELECT `primaryKey`, `med_name`, `dosage`, "
+                    + "`recurring`, `first_date`, `end_date`, `time_rule`, `warnings`, `ingredients`, `tags` FROM `MedicationTable`");
+            db.execSQL("DROP TABLE `MedicationTable`");
+            db.execSQL("ALTER TABLE `MedicationTable_new` RENAME TO `MedicationTable`");
+            //the FTS sync triggers were dropped with the old table, primary keys are unchanged so the index is still valid
+            createContentFtsTriggers(db, "MedicationFts", "MedicationTable", "med_name", "warnings", "ingredients");
+
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_ReminderTable_MedApptID_Classification` "
+                    + "ON `ReminderTable` (`MedApptID`, `Classification`)");
+        }
+    };
+
+    /**
+     * Version 8: DoseOccurrenceTable, filled by DoseOccurrenceGenerator the next time it runs
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db){
+            db.execSQL("CREATE TABLE IF NOT EXISTS `DoseOccurrenceTable` (`primaryKey` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`med_id` INTEGER NOT NULL, `due_at` INTEGER NOT NULL, `status` INTEGER NOT NULL, `acted_at` INTEGER, "
+                    + "FOREIGN KEY(`med_id`) REFERENCES `MedicationTable`(`primaryKey`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            db.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_DoseOccurrenceTable_med_id_due_at` "
+                    + "ON `DoseOccurrenceTable` (`med_id`, `due_at`)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_DoseOccurrenceTable_due_at` ON `DoseOccurrenceTable` (`due_at`)");
+        }
+    };
+
+    /**
+     * Version 9: FireDriftTable, samples of how late the reminder alarm fired
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db){
+            db.execSQL("CREATE TABLE IF NOT EXISTS `FireDriftTable` (`primaryKey` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+                    + "`scheduled_at` INTEGER NOT NULL, `fired_at` INTEGER NOT NULL, `drift_millis` INTEGER NOT NULL)");
+            db.execSQL("CREATE INDEX IF NOT EXISTS `index_FireDriftTable_drift_millis` ON `FireDriftTable` (`drift_millis`)");
+        }
+    };
+
+    /**
+     * Version 10: FdaLabelCache, openFDA search results kept for offline use
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db){
+            db.execSQL("CREATE TABLE IF NOT EXISTS `FdaLabelCache` (`query` TEXT NOT NULL, `fetched_at` INTEGER NOT NULL, "
+                    + "`labels` TEXT NOT NULL, PRIMARY KEY(`query`))");
+        }
+    };
+
+    /**
+     * Version 11: MedicationTable.purpose and fda_checked_at, filled from FDA labels in the background
+     */
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db){
+            db.execSQL("ALTER TABLE `MedicationTable` ADD COLUMN `purpose` TEXT");
+            db.execSQL("ALTER TABLE `MedicationTable` ADD COLUMN `fda_checked_at` INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    /*
+    Creates an external content FTS4 table with the same sync triggers Room generates for an
+    @Fts4(contentEntity = ...) entity, then indexes the rows already in the content table
+     */
+    private static void createContentFtsTable(SupportSQLiteDatabase db, String ftsTable, String contentTable, String... columns){
+        StringBuilder columnDefs = new StringBuilder();
+        for(String column : columns){
+            columnDefs.append('`').append(column).append("` TEXT, ");
+        }
+        db.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `" + ftsTable + "` USING FTS4("
+                + columnDefs + "content=`" + contentTable + "`)");
+        createContentFtsTriggers(db, ftsTable, contentTable, columns);
+        db.execSQL("INSERT INTO `" + ftsTable + "`(`" + ftsTable + "`) VALUES('rebuild')");
+    }
+
+    /*
+    Creates the triggers Room uses to keep an external content FTS table in sync with its content table
+     */
+    private static void createContentFtsTriggers(SupportSQLiteDatabase db, String ftsTable, String contentTable, String... columns){
+        StringBuilder columnList = new StringBuilder();
+        StringBuilder newValues = new StringBuilder();
+        for(String column : columns){
+            columnList.append(", `").append(column).append('`');
+            newValues.append(", NEW.`").append(column).append('`');
+        }
+
+        String triggerPrefix = "CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_" + ftsTable;
+        String delete = " BEGIN DELETE FROM `" + ftsTable + "` WHERE `docid`=OLD.`rowid`; END";
+        String insert = " BEGIN INSERT INTO `" + ftsTable + "`(`docid`" + columnList + ") VALUES (NEW.`rowid`" + newValues + "); END";
+        db.execSQL(triggerPrefix + "_BEFORE_UPDATE BEFORE UPDATE ON `" + contentTable + "`" + delete);
+        db.execSQL(triggerPrefix + "_BEFORE_DELETE BEFORE DELETE ON `" + contentTable + "`" + delete);
+        db.execSQL(triggerPrefix + "_AFTER_UPDATE AFTER UPDATE ON `" + contentTable + "`" + insert);
+        db.execSQL(triggerPrefix + "_AFTER_INSERT AFTER INSERT ON `" + contentTable + "`" + insert);
+    }
+}
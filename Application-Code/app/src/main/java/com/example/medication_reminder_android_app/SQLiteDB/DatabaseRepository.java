@@ -1,7 +1,6 @@
 package com.example.medication_reminder_android_app.SQLiteDB;
 
 import android.app.Application;
-import android.os.AsyncTask;
 import android.provider.ContactsContract;
 import android.renderscript.ScriptGroup;
 import android.util.Log;
@@ -10,11 +9,19 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Observer;
+import androidx.paging.DataSource;
+import androidx.paging.LivePagedListBuilder;
+import androidx.paging.PagedList;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
 import io.reactivex.Single;
 import io.reactivex.annotations.NonNull;
 import io.reactivex.annotations.Nullable;
@@ -29,42 +36,127 @@ import io.reactivex.schedulers.Schedulers;
 
 public class DatabaseRepository {
 
+    private static final int SEARCH_LIMIT_PER_TABLE = 100;
+    private static final long DOSE_TOP_UP_INTERVAL_MILLIS = 60 * 60 * 1000L;
+    private static final int FIRE_DRIFT_SAMPLES_KEPT = 1000;
+    private static volatile long lastDoseTopUpAt; //shared by every repository, the table is too
+    private static final PagedList.Config MED_PAGE_CONFIG = new PagedList.Config.Builder()
+            .setPageSize(30)
+            .setInitialLoadSizeHint(60)
+            .setEnablePlaceholders(true)
+            .build();
+    //FTS column weights, in the column order of each Fts entity
+    private static final double[] MEDICATION_SEARCH_WEIGHTS = {4.0, 1.0, 2.0}; //name, warnings, ingredients
+    private static final double[] DOCTOR_SEARCH_WEIGHTS = {4.0, 2.0, 1.0}; //name, hospital, office location
+    private static final double[] APPOINTMENT_SEARCH_WEIGHTS = {1.0, 4.0}; //notes, type
+
+    private static volatile DatabaseRepository INSTANCE;
+
     private final DataAccessObject dao;
     private final AppDatabase db;
+    private final DatabaseWriter writer; //all writes go through here so they share transactions
+    private final EntityCache cache; //lookups by key, shared with every other repository
 
-    private MedicationEntity singleMed;
-    private ReminderEntity singleReminder;
-    private long lastMedPk = 0; // keep track of medication primary keys. Use bc pk auto-incr
-    private long lastReminderPk = 0; //leep track of last reminder pk. Use bc pk auto-incr
-
-    public DatabaseRepository(Application application){
+    private DatabaseRepository(Application application){
         db = AppDatabase.getDatabase(application);
         dao = db.dataAccessObject();
+        writer = DatabaseWriter.getInstance(db);
+        cache = EntityCache.getInstance();
     }
 
-    private void getMedByNameAsyncFinished(MedicationEntity m) { singleMed = m; }
-    private void getReminderAsyncFinished(ReminderEntity r) { singleReminder = r; }
-    private void insertMedAsyncFinished(long medPk) { lastMedPk = medPk; }
-    private void insertReminderAsyncFinished(long reminderPk) { lastReminderPk = reminderPk; }
+    /**
+     * The repository lives as long as the process, so receivers and the alarm scheduler can use it
+     * without an Activity or ViewModel having been created
+     * @param application
+     * @return
+     */
+    public static DatabaseRepository getInstance(Application application){
+        if(INSTANCE == null){
+            synchronized (DatabaseRepository.class){
+                if(INSTANCE == null){
+                    INSTANCE = new DatabaseRepository(application);
+                }
+            }
+        }
+        return INSTANCE;
+    }
 
-    //TODO: finish this: tags need to be added to Med on input
-//    public LiveData<List<MedicationEntity>> filterMedications(String[] tags){
-//        //because want to pull if have any tags, need to build the query WHERE clause as such
-//        String queryReq = ""; //to send to query so can get tags in any order
-//        if(tags.length > 1){
-//            for(String tag: tags){
-//                queryReq += " tags LIKE %" + tag + "% OR";
-//            }
-//            if(queryReq.length() > 4){
-//                queryReq = queryReq.substring(0, queryReq.length() - 4); //Remove last OR
-//            }
-//        } else{
-//            queryReq = "tags LIKE %%";
-//        }
-//
-//        return dao.loadFilteredMedications(queryReq);
-//    }
+    /*
+    Queue a write that changes cached rows. invalidate runs now and again once the write has
+    committed, so nothing read before the commit stays cached
+     */
+    private Completable execute(Runnable invalidate, DatabaseWriter.VoidWrite write){
+        invalidate.run();
+        return writer.execute(write, invalidate);
+    }
+
+    private <T> Single<T> submit(Runnable invalidate, DatabaseWriter.Write<T> write){
+        invalidate.run();
+        return writer.submit(write, invalidate);
+    }
 
+    /**
+     * returns medications that have any (or all) of the given tags, wrapped in live data for UI
+     * @param tags
+     * @param matchAll true to only return medications that have every tag
+     * @return
+     */
+    public LiveData<List<MedicationEntity>> filterMedications(Collection<String> tags, boolean matchAll){
+        List<String> normalized = new ArrayList<>();
+        for(String tag : tags){
+            String n = MedicationTagEntity.normalize(tag);
+            if(!n.isEmpty() && !normalized.contains(n)) normalized.add(n);
+        }
+        if(normalized.isEmpty()){
+            return dao.getAllMeds();
+        }
+        return matchAll ? dao.loadMedicationsWithAllTags(normalized, normalized.size())
+                : dao.loadMedicationsWithAnyTag(normalized);
+    }
+
+
+    /**
+     * Searches medications, doctors and appointments through their full text indexes
+     * @param query text as the user typed it
+     * @return hits from every table, best match first
+     */
+    public Single<List<SearchHit>> search(String query){
+        String match = FullTextSearch.toMatchQuery(query);
+        if(match == null){
+            return Single.just(Collections.<SearchHit>emptyList());
+        }
+        return Single.fromCallable(() -> db.runInTransaction(() -> {
+            List<SearchHit> hits = new ArrayList<>();
+            addSearchHits(hits, SearchHit.Type.MEDICATION, dao.matchMedications(match, SEARCH_LIMIT_PER_TABLE),
+                    MEDICATION_SEARCH_WEIGHTS);
+            addSearchHits(hits, SearchHit.Type.DOCTOR, dao.matchDoctors(match, SEARCH_LIMIT_PER_TABLE),
+                    DOCTOR_SEARCH_WEIGHTS);
+            addSearchHits(hits, SearchHit.Type.APPOINTMENT, dao.matchAppointments(match, SEARCH_LIMIT_PER_TABLE),
+                    APPOINTMENT_SEARCH_WEIGHTS);
+            Collections.sort(hits, (a, b) -> Double.compare(b.getScore(), a.getScore()));
+            return hits;
+        }));
+    }
+
+    private static void addSearchHits(List<SearchHit> hits, SearchHit.Type type, List<FtsMatch> matches, double[] weights){
+        for(FtsMatch match : matches){
+            hits.add(new SearchHit(type, match.getRowId(), match.getTitle(), FullTextSearch.rank(match.getMatchInfo(), weights)));
+        }
+    }
+
+    /**
+     * returns medications matching the search text as a paged list for UI,
+     * or all of them if there is nothing to search for.
+     * Only the pages near what is on screen are loaded, the rest are placeholders
+     * @param query text as the user typed it
+     * @return
+     */
+    public LiveData<PagedList<MedicationSummary>> pageMedications(String query){
+        String match = FullTextSearch.toMatchQuery(query);
+        DataSource.Factory<Integer, MedicationSummary> factory =
+                match == null ? dao.pageAllMeds() : dao.pageSearchMedications(match);
+        return new LivePagedListBuilder<>(factory, MED_PAGE_CONFIG).build();
+    }
 
     /**
      * @author Hayley Roberts
@@ -89,6 +181,105 @@ public class DatabaseRepository {
         return dao.selectNextReminders(numOfReminders);
     }
 
+    /**
+     * loads the next reminders due at or after a time
+     * @param from
+     * @param numOfReminders
+     * @return
+     */
+    public Single<ReminderEntity[]> getRemindersDueAfter(Date from, int numOfReminders){
+        return dao.selectRemindersDueAfter(from, numOfReminders);
+    }
+
+    /**
+     * @param limit
+     * @return Single that emits up to limit medications whose FDA label has not been looked up yet
+     */
+    public Single<List<MedicationEntity>> getUnenrichedMedications(int limit){
+        return dao.getUnenrichedMedications(limit);
+    }
+
+    /**
+     * Write what was found on the FDA labels of several medications back in one transaction.
+     * Each medication's warnings, ingredients, purpose and fda_checked_at are written, see
+     * DataAccessObject.setFdaLabel
+     * @param medications
+     */
+    public Completable setFdaLabels(List<MedicationEntity> medications){
+        return execute(cache::clearMedications, dao -> {
+            for(MedicationEntity m : medications){
+                dao.setFdaLabel(m.getPrimaryKey(), m.getWarnings(), m.getIngredients(), m.getPurpose(), m.getFdaCheckedAt());
+            }
+        });
+    }
+
+    /**
+     * cached results of an openFDA label search
+     * @param query normalized search text
+     * @return Maybe that is empty if the search was never cached
+     */
+    public Maybe<FdaLabelCacheEntity> getFdaLabelCache(String query){
+        return dao.getFdaLabelCache(query);
+    }
+
+    /**
+     * Cache the results of an openFDA label search, replacing what was cached for it before, and
+     * prune the cache in the same write
+     * @param entry
+     * @param pruneBefore epoch millis, searches fetched before this are dropped
+     * @param keep most searches kept, the least recently fetched are dropped past it
+     */
+    public Completable putFdaLabelCache(FdaLabelCacheEntity entry, long pruneBefore, int keep){
+        return writer.execute(dao -> {
+            dao.insertFdaLabelCache(entry);
+            dao.pruneFdaLabelCache(pruneBefore, keep);
+        });
+    }
+
+    /**
+     * Record how late the reminder alarm fired. Only the newest FIRE_DRIFT_SAMPLES_KEPT samples are kept
+     * @param scheduledAt epoch millis the alarm was set for
+     * @param firedAt epoch millis it was received
+     */
+    public Completable recordFireDrift(long scheduledAt, long firedAt){
+        return writer.execute(dao -> {
+            dao.insertFireDrift(new FireDriftEntity(scheduledAt, firedAt));
+            dao.trimFireDrift(FIRE_DRIFT_SAMPLES_KEPT);
+        });
+    }
+
+    /**
+     * Percentiles and late counts of the recorded fire drift. Each percentile is one read of the
+     * drift index at its rank
+     * @return
+     */
+    public Single<FireDriftStats> getFireDriftStats(){
+        return Single.fromCallable(() -> db.runInTransaction(() -> {
+            int n = dao.countFireDrift();
+            if(n == 0) return new FireDriftStats(0, 0, 0, 0, 0, 0);
+            return new FireDriftStats(n,
+                    dao.getFireDriftAt(nearestRank(n, 50)),
+                    dao.getFireDriftAt(nearestRank(n, 95)),
+                    dao.getFireDriftAt(nearestRank(n, 99)),
+                    dao.countFireDriftOver(60 * 1000L),
+                    dao.countFireDriftOver(10 * 60 * 1000L));
+        }));
+    }
+
+    //0 based position of the percentile in n sorted values
+    private static int nearestRank(int n, int percentile){
+        return (n * percentile + 99) / 100 - 1;
+    }
+
+    /**
+     * loads the id and due time of every reminder due after a time, soonest first
+     * @param after epoch millis
+     * @return
+     */
+    public Single<List<ReminderDue>> getRemindersDueAfter(long after){
+        return dao.getRemindersDueAfter(after);
+    }
+
     /**
      * @author Hayley Roberts
      * grabs medicationEntity by medName from MedTable
@@ -96,7 +287,13 @@ public class DatabaseRepository {
      * @return
      */
     public Single<MedicationEntity> getMedByName(String medName){
-        return dao.getMedicationByName(medName);
+        if(medName == null) return dao.getMedicationByName(null);
+        return Single.defer(() -> {
+            MedicationEntity cached = cache.getMedicationByName(medName);
+            if(cached != null) return Single.just(cached);
+            long generation = cache.generation();
+            return dao.getMedicationByName(medName).doOnSuccess(m -> cache.putMedication(generation, medName, m));
+        });
     }
 
     /**
@@ -106,7 +303,12 @@ public class DatabaseRepository {
      * @return
      */
     public Single<MedicationEntity> getMedById(long entityId){
-        return dao.getMedicationById(entityId);
+        return Single.defer(() -> {
+            MedicationEntity cached = cache.getMedication(entityId);
+            if(cached != null) return Single.just(cached);
+            long generation = cache.generation();
+            return dao.getMedicationById(entityId).doOnSuccess(m -> cache.putMedication(generation, m));
+        });
     }
 
     /**
@@ -116,44 +318,174 @@ public class DatabaseRepository {
      * @return
      */
     public Single<ReminderEntity> getReminderById(long entityId){
-        return dao.getReminder(entityId);
+        return Single.defer(() -> {
+            ReminderEntity cached = cache.getReminder(entityId);
+            if(cached != null) return Single.just(cached);
+            long generation = cache.generation();
+            return dao.getReminder(entityId).doOnSuccess(r -> cache.putReminder(generation, r));
+        });
+    }
+
+    /**
+     * grabs a reminder joined with the name of the medication or appointment it is for
+     * @param reminderId
+     * @return
+     */
+    public Single<ReminderWithTarget> getReminderWithTarget(long reminderId){
+        return dao.getReminderWithTarget(reminderId);
+    }
+
+    /**
+     * grabs several reminders with what each is for in one query, soonest first. Missing ones are left out
+     * @param reminderIds
+     * @return
+     */
+    public Single<List<ReminderWithTarget>> getRemindersWithTarget(long[] reminderIds){
+        return dao.getRemindersWithTarget(reminderIds);
+    }
+
+    /**
+     * @return the cache in front of getMedById, getMedByName and getReminderById, for its counters
+     */
+    public EntityCache getEntityCache(){
+        return cache;
+    }
+
+    /**
+     * grabs acknowledgements of a medication taken in the window [from, to)
+     * @param medId
+     * @param from epoch millis
+     * @param to epoch millis
+     * @return
+     */
+    public Single<List<AcknowledgementEntity>> getAcknowledgementsBetween(long medId, long from, long to){
+        return dao.getAcknowledgementsBetween(medId, from, to);
+    }
+
+    /**
+     * doses of every medication due in the window [from, to), soonest first
+     * @param from epoch millis
+     * @param to epoch millis
+     * @return
+     */
+    public Single<List<DoseOccurrenceEntity>> getDoseOccurrencesBetween(long from, long to){
+        return dao.getDoseOccurrencesBetween(from, to);
+    }
+
+    /**
+     * how many doses of a medication in the window [from, to) were scheduled, taken and skipped
+     * @param medId
+     * @param from epoch millis
+     * @param to epoch millis
+     * @return
+     */
+    public Single<AdherenceCount> getAdherence(long medId, long from, long to){
+        return dao.getAdherence(medId, from, to);
+    }
+
+    /**
+     * the most recent acknowledgements of a medication, newest first
+     * @param medId
+     * @param limit
+     * @return
+     */
+    public LiveData<List<AcknowledgementEntity>> getRecentAcknowledgements(long medId, int limit){
+        return dao.getRecentAcknowledgements(medId, limit);
     }
 
     /**
      *@author Hayley Roberts
      * Insert Medication into MedicationTable
      * @param m
+     * @return Single that emits the primary key of the medication once it is written
      */
-    public void insertMed(MedicationEntity m){
-        new AsyncInsertMedication(dao, this).execute(m);
+    public Single<Long> insertMed(MedicationEntity m){
+        return submit(() -> cache.invalidateMedicationName(m.getMedName()), dao -> {
+            long pk = dao.insertMedication(m);
+            m.setPrimaryKey(pk);
+            dao.insertTags(MedicationTagEntity.forMedication(pk, m.getTags()));
+            dao.insertMedicationState(new MedicationStateEntity(pk, 0, null));
+            DoseOccurrenceGenerator.topUp(dao, m, System.currentTimeMillis());
+            return pk;
+        });
     }
 
     /**
      * @author Hayley Roberts
      * insert Reminder into ReminderTable
      * @param r
+     * @return Single that emits the primary key of the reminder once it is written
      */
-    public void insertReminder(ReminderEntity r){
-        new AsyncInsertReminder(dao, this).execute(r);
+    public Single<Long> insertReminder(ReminderEntity r){
+        return writer.submit(dao -> {
+            long pk = dao.insertReminder(r);
+            r.setPrimaryKey(pk);
+            return pk;
+        });
     }
 
     /**
      * @author Hayley Roberts
      * Insert a medication and reminder into the respective tables
      * @param m
+     * @return Single that emits the primary key of the reminder once both are written
      */
-    public void insertMedAndReminder(MedicationEntity m){
-        new AsyncInsertMedAndReminder(dao).execute(m);
+    public Single<Long> insertMedAndReminder(MedicationEntity m){
+        return submit(() -> cache.invalidateMedicationName(m.getMedName()), dao -> {
+            long medPk = dao.insertMedication(m);
+            m.setPrimaryKey(medPk);
+            dao.insertTags(MedicationTagEntity.forMedication(medPk, m.getTags()));
+            String[] sepDate = m.getFirstDate().split(" ");
+            ReminderEntity reminder = new ReminderEntity("M", sepDate[1], sepDate[0], 0, medPk);
+            reminder.setDueAtEpochMillis(DateConverters.toEpochMillis(sepDate[0], sepDate[1]));
+            long reminderPk = dao.insertReminder(reminder);
+            dao.insertMedicationState(new MedicationStateEntity(medPk, reminderPk, null));
+            DoseOccurrenceGenerator.topUp(dao, m, System.currentTimeMillis());
+            return reminderPk;
+        });
     }
 
     /**
-     * @author Hayley Roberts
-     * Update the acknowledgements in the Medication table for a medication entity
+     * Record that a dose of a medication was taken
      * @param m
-     * @param acknowledgementList
+     * @param takenAt epoch millis
+     */
+    public Completable insertAcknowledgement(MedicationEntity m, long takenAt) {
+        return writer.execute(dao -> {
+            dao.insertAcknowledgement(new AcknowledgementEntity(m.getPrimaryKey(), takenAt));
+            dao.updateLastTakenAt(m.getPrimaryKey(), takenAt);
+        });
+    }
+
+    /**
+     * Acknowledge or dismiss a medication reminder and move it on to its next dose, in one
+     * transaction, see DataAccessObject.acknowledgeReminder. Needs nothing but the reminder id, so a notification action can call it after
+     * the app's process was killed
+     * @param reminderId
+     * @param expectedDueAt the reminder's due_at when its notification was posted
+     * @param dismissed true if the dose was skipped
+     * @param now epoch millis
+     * @return Single that emits when the reminder is next due, or TimeRuleSchedule.NONE if it is
+     * not due again. Nothing is written if the reminder was already moved past expectedDueAt, and
+     * its current due time is emitted
+     */
+    public Single<Long> acknowledgeReminder(long reminderId, long expectedDueAt, boolean dismissed, long now){
+        return submit(() -> cache.invalidateReminder(reminderId),
+                dao -> dao.acknowledgeReminder(reminderId, expectedDueAt, dismissed, now));
+    }
+
+    /**
+     * Generate the dose occurrences of every medication up to a week ahead. Only the occurrences
+     * that are new since the last run are written, and runs less than an hour apart are skipped
+     * @return Single that emits the number of occurrences added
      */
-    public void updateAcknowledgements(MedicationEntity m, String acknowledgementList) {
-        new AsyncUpdateAcknowledgement(dao, m).execute(acknowledgementList);
+    public Single<Integer> topUpDoseOccurrences(){
+        long now = System.currentTimeMillis();
+        if(now - lastDoseTopUpAt < DOSE_TOP_UP_INTERVAL_MILLIS){
+            return Single.just(0);
+        }
+        lastDoseTopUpAt = now;
+        return writer.submit(dao -> DoseOccurrenceGenerator.topUpAll(dao, now));
     }
 
     /**
@@ -162,7 +494,9 @@ public class DatabaseRepository {
      * @param m
      * @param reminderPK
      */
-    public void addReminderID(MedicationEntity m, long reminderPK){ new AsyncAddReminderID(dao, m).execute(reminderPK); }
+    public Completable addReminderID(MedicationEntity m, long reminderPK){
+        return writer.execute(dao -> dao.addReminderID(m.getPrimaryKey(), reminderPK));
+    }
 
     /**
      * @author Hayley Roberts
@@ -173,9 +507,10 @@ public class DatabaseRepository {
      * @param time
      * @param timeIntervalIndex
      */
-    public void updateReminderDateAndTime(ReminderEntity r, String date, String time, int timeIntervalIndex){
-        String dateTime = date + " " + time + " " + timeIntervalIndex;
-        new AsyncReminderUpdateDateTime(dao, r).execute(dateTime);
+    public Completable updateReminderDateAndTime(ReminderEntity r, String date, String time, int timeIntervalIndex){
+        return execute(() -> cache.invalidateReminder(r.getPrimaryKey()),
+                dao -> dao.updateDateAndTime(r.getPrimaryKey(), date, time, timeIntervalIndex,
+                        DateConverters.toEpochMillis(date, time)));
     }
 
     /**
@@ -183,24 +518,33 @@ public class DatabaseRepository {
      * Delete medication from Medication table
      * @param m
      */
-    public void deleteMed(MedicationEntity m){
-        new AsyncDeleteMedication(dao).execute(m);
+    public Completable deleteMed(MedicationEntity m){
+        return execute(() -> cache.invalidateMedication(m.getPrimaryKey()), dao -> dao.deleteMedication(m));
     }
 
     /**
      * @author Hayley Roberts
-     * Delete medication from Medication table
+     * Delete medication from Medication table, and its reminders
      * @param medName
+     * @return ids of the reminders deleted with it
      */
-    public void deleteMedByName(String medName) { new AsyncDeleteMedByName(dao).execute(medName); }
+    public Single<List<Long>> deleteMedByName(String medName) {
+        //LIKE matches names the cache holds under other spellings, so drop every medication
+        return submit(() -> { cache.clearMedications(); cache.clearReminders(); }, dao -> {
+            List<Long> reminderIds = dao.getMedicationReminderIdsByNameNow(medName);
+            dao.deleteMedicationRemindersByName(medName);
+            dao.deleteMedicationByName(medName);
+            return reminderIds;
+        });
+    }
 
     /**
      * @author Hayley Roberts
      * Delete Reminder from reminderTable
      * @param r
      */
-    public void deleteReminder(ReminderEntity r){
-        new AsyncDeleteReminder(dao).execute(r);
+    public Completable deleteReminder(ReminderEntity r){
+        return execute(() -> cache.invalidateReminder(r.getPrimaryKey()), dao -> dao.deleteReminder(r));
     }
 
     /**
@@ -208,265 +552,63 @@ public class DatabaseRepository {
      * Delete reminder from ReminderTable
      * @param reminderId
      */
-    public void deleteReminderById(long reminderId) { new AsyncDeleteReminderById(dao).execute(reminderId); }
+    public Completable deleteReminderById(long reminderId) {
+        return execute(() -> cache.invalidateReminder(reminderId), dao -> dao.deleteReminderById(reminderId));
+    }
+
+    /**
+     * Delete the reminders of a medication
+     * @param medId
+     * @return ids of the reminders deleted
+     */
+    public Single<List<Long>> deleteMedicationReminders(long medId) {
+        return submit(cache::clearReminders, dao -> {
+            List<Long> reminderIds = dao.getMedicationReminderIdsNow(medId);
+            dao.deleteMedicationReminders(medId);
+            return reminderIds;
+        });
+    }
 
     /**
      * @author Hayley Roberts
      * Delete all reminders that are of Medication Classification
+     * @return ids of the reminders deleted
      */
-    public void deleteAllMedReminders() { new AsyncDeleteAllMedReminders(dao).execute(); }
+    public Single<List<Long>> deleteAllMedReminders() {
+        return submit(cache::clearReminders, dao -> {
+            List<Long> reminderIds = dao.getAllMedicationReminderIdsNow();
+            dao.deleteAllMedicationReminders();
+            return reminderIds;
+        });
+    }
 
     /**
      * @author Hayley Roberts
      * Delete all reminders of Appointment classification
      */
-    public void deleteAllApptReminders() { new AsyncDeleteAllApptReminders(dao).execute(); }
+    public Completable deleteAllApptReminders() {
+        return execute(cache::clearReminders, DataAccessObject::deleteAllAppointmentReminders);
+    }
 
     /**
      * @author Hayley Roberts
      * Delete all medications from MedicationTable
      */
-    public void deleteAllMeds(){
-        new AsyncDeleteAllMeds(dao).execute();
+    public Completable deleteAllMeds(){
+        return execute(cache::clearMedications, DataAccessObject::clearAllMedications);
     }
 
     /**
      * @author Hayley Roberts
      * Delete all reminders from ReminderTable
+     * @return ids of the reminders deleted
      */
-    public void deleteAllReminders(){
-        new AsyncDeleteAllReminders(dao).execute();
-    }
-
-
-    /*
-    All of the classes below are AsyncTasks that handle calling dao methods in a separate thread from the Main thread
-     */
-
-    private static class AsyncInsertMedication extends AsyncTask<MedicationEntity, Void, Long>{
-        private final DataAccessObject dao;
-        private final DatabaseRepository delegate;
-
-        public AsyncInsertMedication(DataAccessObject inputHandler, DatabaseRepository repo){
-            dao = inputHandler;
-            delegate = repo;
-        }
-
-        @Override
-        protected Long doInBackground(MedicationEntity... params){
-            Long pk = dao.insertMedication(params[0]);
-            params[0].setPrimaryKey(pk);
-            return pk;
-        }
-
-        @Override
-        protected void onPostExecute(Long pk){
-            delegate.insertMedAsyncFinished(pk);
-        }
-
-    }
-
-    private static class AsyncInsertReminder extends AsyncTask<ReminderEntity, Void, Long>{
-        private final DataAccessObject dao;
-        private final DatabaseRepository delegate;
-
-        public AsyncInsertReminder(DataAccessObject inputHandler, DatabaseRepository repo){
-            dao = inputHandler;
-            delegate = repo;
-        }
-
-        @Override
-        protected Long doInBackground(ReminderEntity... reminders){
-            Long pk = dao.insertReminder(reminders[0]);
-            reminders[0].setPrimaryKey(pk);
-            return pk;
-        }
-
-        @Override
-        protected void onPostExecute(Long pk){
-            delegate.insertReminderAsyncFinished(pk);
-        }
-    }
-
-    private static class AsyncInsertMedAndReminder extends AsyncTask<MedicationEntity, Void, Void> {
-        private DataAccessObject dao;
-
-        public AsyncInsertMedAndReminder(DataAccessObject d){
-            dao = d;
-        }
-
-        @Override
-        protected Void doInBackground(MedicationEntity... m){
-            long medPk = dao.insertMedication(m[0]);
-            String[] sepDate = m[0].getFirstDate().split(" ");
-            ReminderEntity reminder = new ReminderEntity("M", sepDate[1], sepDate[0], 0, medPk);
-            long reminderPk = dao.insertReminder(reminder);
-            dao.addReminderID(medPk, reminderPk);
-            return null;
-        }
-
-    }
-
-    private static class AsyncUpdateAcknowledgement extends AsyncTask<String, Void, Void>{
-        private final DataAccessObject dao;
-        private final MedicationEntity m;
-
-        public AsyncUpdateAcknowledgement(DataAccessObject inputHandler, MedicationEntity medEntity){
-            dao = inputHandler;
-            m = medEntity;
-        }
-
-        @Override
-        protected Void doInBackground(String... params){
-            dao.updateAcknowledgements(m.getPrimaryKey(), params[0]);
-            return null;
-        }
-
-    }
-
-    private static class AsyncAddReminderID extends AsyncTask<Long, Void, Void>{
-        private final DataAccessObject dao;
-        private final MedicationEntity m;
-
-        public AsyncAddReminderID(DataAccessObject d, MedicationEntity medEntity){
-            dao = d;
-            m = medEntity;
-        }
-
-        @Override
-        protected Void doInBackground(Long... params){
-            dao.addReminderID(m.getPrimaryKey(), params[0]);
-            return null;
-        }
-    }
-
-    private static class AsyncReminderUpdateDateTime extends AsyncTask<String, Void, Void>{
-        private final DataAccessObject dao;
-        private final ReminderEntity r;
-
-        public AsyncReminderUpdateDateTime(DataAccessObject d, ReminderEntity reminderEntity){
-            dao = d;
-            r = reminderEntity;
-        }
-
-        @Override
-        protected Void doInBackground(String... params){
-            String[] dateTime = params[0].split(" ");
-            dao.updateDateAndTime(r.getPrimaryKey(), dateTime[0], dateTime[1], Integer.parseInt(dateTime[2]));
-            return null;
-        }
-
-    }
-
-    private static class AsyncDeleteMedication extends AsyncTask<MedicationEntity, Void, Void>{
-        private final DataAccessObject dao;
-
-        public AsyncDeleteMedication(DataAccessObject inputHandler){
-            dao = inputHandler;
-        }
-
-        @Override
-        protected Void doInBackground(MedicationEntity... meds){
-            dao.deleteMedication(meds[0]);
-            return null;
-        }
-    }
-
-    private static class AsyncDeleteMedByName extends AsyncTask<String, Void, Void>{
-        private final DataAccessObject dao;
-
-        public AsyncDeleteMedByName(DataAccessObject d){ dao = d; }
-
-        @Override
-        protected Void doInBackground(String... params){
-            dao.deleteMedicationByName(params[0]);
-            return null;
-        }
-    }
-
-    private static class AsyncDeleteReminder extends AsyncTask<ReminderEntity, Void, Void>{
-        private final DataAccessObject dao;
-
-        public AsyncDeleteReminder(DataAccessObject inputHandler){
-            dao = inputHandler;
-        }
-
-        @Override
-        protected Void doInBackground(ReminderEntity... reminders){
-            dao.deleteReminder(reminders[0]);
-            return null;
-        }
-    }
-
-    private static class AsyncDeleteReminderById extends AsyncTask<Long, Void, Void>{
-        private final DataAccessObject dao;
-
-        public AsyncDeleteReminderById(DataAccessObject inputHandler){
-            dao = inputHandler;
-        }
-
-        @Override
-        protected Void doInBackground(Long... params){
-            dao.deleteReminderById(params[0]);
-            return null;
-        }
-    }
-
-    private static class AsyncDeleteAllMedReminders extends AsyncTask<Void, Void, Void>{
-        private final DataAccessObject dao;
-
-        public AsyncDeleteAllMedReminders(DataAccessObject d){
-            dao = d;
-        }
-
-        @Override
-        protected Void doInBackground(Void... params){
-            dao.deleteAllMedicationReminders();
-            return null;
-        }
-    }
-
-    private static class AsyncDeleteAllApptReminders extends AsyncTask<Void, Void, Void>{
-        private final DataAccessObject dao;
-
-        public AsyncDeleteAllApptReminders(DataAccessObject d){
-            dao = d;
-        }
-
-        @Override
-        protected Void doInBackground(Void... params){
-            dao.deleteAllAppointmentReminders();
-            return null;
-        }
-    }
-
-
-    private static class AsyncDeleteAllMeds extends AsyncTask<Void, Void, Void>{
-        private final DataAccessObject dao;
-
-        public AsyncDeleteAllMeds(DataAccessObject inputHandler){
-            dao = inputHandler;
-        }
-
-        @Override
-        protected Void doInBackground(Void... voids){
-            dao.clearAllMedications();
-            return null;
-        }
-    }
-
-    private static class AsyncDeleteAllReminders extends AsyncTask<Void, Void, Void>{
-        private final DataAccessObject dao;
-
-        public AsyncDeleteAllReminders(DataAccessObject inputHandler){
-            dao = inputHandler;
-        }
-
-        @Override
-        protected Void doInBackground(Void... voids){
+    public Single<List<Long>> deleteAllReminders(){
+        return submit(cache::clearReminders, dao -> {
+            List<Long> reminderIds = dao.getAllReminderIdsNow();
             dao.clearAllReminders();
-            return null;
-        }
+            return reminderIds;
+        });
     }
 
 }
@@ -0,0 +1,249 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import io.reactivex.Completable;
+import io.reactivex.Single;
+import io.reactivex.subjects.CompletableSubject;
+import io.reactivex.subjects.SingleSubject;
+
+/**
+ * Single writer for every mutation made through the DatabaseRepository.
+ *
+ * Writes are queued and drained by one background thread. Everything that is queued when a
+ * drain starts is run inside one Room transaction, so a burst of inputs or acknowledgements
+ * costs one commit instead of one per write. Callers get a Single/Completable handle that
+ * completes once the transaction holding their write has committed.
+ */
+final class DatabaseWriter {
+
+    private static final String TAG = "app-db-writer";
+    private static final int MAX_BATCH_SIZE = 256; //keeps a single transaction from holding the db lock too long
+
+    /**
+     * A write that produces a result, such as the primary key of an inserted row.
+     * Must not return null.
+     */
+    interface Write<T> {
+        T apply(DataAccessObject dao);
+    }
+
+    /**
+     * A write that produces no result
+     */
+    interface VoidWrite {
+        void apply(DataAccessObject dao);
+    }
+
+    private static volatile DatabaseWriter INSTANCE;
+
+    private final AppDatabase db;
+    private final DataAccessObject dao;
+    private final ExecutorService executor;
+    private final ConcurrentLinkedQueue<PendingWrite> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong transactionCount = new AtomicLong();
+
+    //package-private so benchmarks can run a writer over a database of their own
+    DatabaseWriter(AppDatabase database){
+        db = database;
+        dao = database.dataAccessObject();
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "database-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static DatabaseWriter getInstance(AppDatabase database){
+        if(INSTANCE == null){
+            synchronized (DatabaseWriter.class){
+                if(INSTANCE == null){
+                    INSTANCE = new DatabaseWriter(database);
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * Queue a write that returns a value
+     * @param write
+     * @return Single that emits the value once the write has been committed
+     */
+    <T> Single<T> submit(Write<T> write){
+        return submit(write, null);
+    }
+
+    /**
+     * Queue a write that returns a value
+     * @param write
+     * @param afterCommit run on the writer thread once the write has been committed, before the Single emits. May be null
+     * @return Single that emits the value once the write has been committed
+     */
+    <T> Single<T> submit(Write<T> write, Runnable afterCommit){
+        ResultWrite<T> pending = new ResultWrite<>(write, afterCommit);
+        enqueue(pending);
+        return pending.result.hide();
+    }
+
+    /**
+     * Queue a write that returns nothing
+     * @param write
+     * @return Completable that completes once the write has been committed
+     */
+    Completable execute(VoidWrite write){
+        return execute(write, null);
+    }
+
+    /**
+     * Queue a write that returns nothing
+     * @param write
+     * @param afterCommit run on the writer thread once the write has been committed, before the Completable completes. May be null
+     * @return Completable that completes once the write has been committed
+     */
+    Completable execute(VoidWrite write, Runnable afterCommit){
+        CompletionWrite pending = new CompletionWrite(write, afterCommit);
+        enqueue(pending);
+        return pending.result.hide();
+    }
+
+    /**
+     * @return number of writes committed since the process started
+     */
+    long getWriteCount(){ return writeCount.get(); }
+
+    /**
+     * @return number of transactions used to commit those writes
+     */
+    long getTransactionCount(){ return transactionCount.get(); }
+
+    private void enqueue(PendingWrite pending){
+        queue.add(pending);
+        if(drainScheduled.compareAndSet(false, true)){
+            executor.execute(this::drain);
+        }
+    }
+
+    /*
+    Runs on the writer thread. Takes everything currently queued and commits it as one transaction.
+    If the batch fails, each write is retried in its own transaction so one bad write does not
+    fail the writes that were queued alongside it.
+     */
+    private void drain(){
+        drainScheduled.set(false);
+
+        List<PendingWrite> batch = new ArrayList<>();
+        PendingWrite next;
+        while(batch.size() < MAX_BATCH_SIZE && (next = queue.poll()) != null){
+            batch.add(next);
+        }
+
+        if(!batch.isEmpty()){
+            try {
+                db.runInTransaction(() -> {
+                    for(PendingWrite pending : batch){
+                        pending.run(dao);
+                    }
+                });
+                transactionCount.incrementAndGet();
+                writeCount.addAndGet(batch.size());
+                for(PendingWrite pending : batch){
+                    pending.complete();
+                }
+            } catch(RuntimeException batchError){
+                Log.d(TAG, "Batch of " + batch.size() + " writes failed, retrying individually", batchError);
+                for(PendingWrite pending : batch){
+                    try {
+                        db.runInTransaction(() -> pending.run(dao));
+                        transactionCount.incrementAndGet();
+                        writeCount.incrementAndGet();
+                        pending.complete();
+                    } catch(RuntimeException e){
+                        Log.d(TAG, "Write failed", e);
+                        pending.fail(e);
+                    }
+                }
+            }
+        }
+
+        if(!queue.isEmpty() && drainScheduled.compareAndSet(false, true)){
+            executor.execute(this::drain);
+        }
+    }
+
+
+    /*
+    Queued writes. run() is called inside the transaction, complete()/fail() only after it ends
+     */
+
+    private abstract static class PendingWrite {
+        private final Runnable afterCommit;
+
+        PendingWrite(Runnable afterCommit){ this.afterCommit = afterCommit; }
+
+        abstract void run(DataAccessObject dao);
+        abstract void signal();
+        abstract void fail(Throwable e);
+
+        final void complete(){
+            if(afterCommit != null){
+                try {
+                    afterCommit.run();
+                } catch(RuntimeException e){
+                    Log.d(TAG, "After commit hook failed", e);
+                }
+            }
+            signal();
+        }
+    }
+
+    private static final class ResultWrite<T> extends PendingWrite {
+        private final Write<T> write;
+        private final SingleSubject<T> result = SingleSubject.create();
+        private T value;
+
+        ResultWrite(Write<T> w, Runnable afterCommit){
+            super(afterCommit);
+            write = w;
+        }
+
+        @Override
+        void run(DataAccessObject dao){ value = write.apply(dao); }
+
+        @Override
+        void signal(){ result.onSuccess(value); }
+
+        @Override
+        void fail(Throwable e){ result.onError(e); }
+    }
+
+    private static final class CompletionWrite extends PendingWrite {
+        private final VoidWrite write;
+        private final CompletableSubject result = CompletableSubject.create();
+
+        CompletionWrite(VoidWrite w, Runnable afterCommit){
+            super(afterCommit);
+            write = w;
+        }
+
+        @Override
+        void run(DataAccessObject dao){ write.apply(dao); }
+
+        @Override
+        void signal(){ result.onComplete(); }
+
+        @Override
+        void fail(Throwable e){ result.onError(e); }
+    }
+}
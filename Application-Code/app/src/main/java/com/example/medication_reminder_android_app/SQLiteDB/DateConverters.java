@@ -0,0 +1,33 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.TypeConverter;
+
+import java.util.Date;
+
+/**
+ * Room TypeConverters for times stored as epoch millis, and the conversion from the
+ * YYYY-MM-DD / HH:MM strings kept in ReminderTable to epoch millis.
+ */
+public class DateConverters {
+
+    @TypeConverter
+    public static Date fromEpochMillis(Long epochMillis){
+        return epochMillis == null ? null : new Date(epochMillis);
+    }
+
+    @TypeConverter
+    public static Long toEpochMillis(Date date){
+        return date == null ? null : date.getTime();
+    }
+
+    /**
+     * Converts a local date and time to epoch millis. Fields do not need to be zero padded.
+     * @param date Format: YYYY-MM-DD
+     * @param time Format: HH:MM (seconds are ignored if present)
+     * @return millis since epoch
+     * @throws IllegalArgumentException if date or time are not in the expected format
+     */
+    public static long toEpochMillis(String date, String time){
+        return DateTimeCodec.parse(date, time);
+    }
+}
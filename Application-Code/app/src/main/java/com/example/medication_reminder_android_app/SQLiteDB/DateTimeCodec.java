@@ -0,0 +1,261 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import java.util.TimeZone;
+
+/**
+ * Converts between epoch millis and the "YYYY-MM-DD HH:MM" strings stored in the database.
+ *
+ * Dates are worked out with integer arithmetic on days since the epoch instead of Calendar,
+ * DateFormat or String.split, so a conversion allocates nothing but the returned String and does
+ * not depend on the device locale. All methods are static and safe to call from any thread.
+ * Local times use the given TimeZone, or the device default. TimeZone.getDefault returns a new
+ * copy on every call, so the default is read once and kept until refreshDefaultZone is called,
+ * which RescheduleReceiver does when the time zone changes.
+ */
+public final class DateTimeCodec {
+
+    private static final long MILLIS_PER_MINUTE = 60 * 1000L;
+    private static final long MILLIS_PER_DAY = 24 * 60 * MILLIS_PER_MINUTE;
+    private static final long TRANSITION_WINDOW = 6 * 60 * MILLIS_PER_MINUTE; //wider than any DST shift
+
+    private static volatile TimeZone defaultZone = TimeZone.getDefault();
+
+    private DateTimeCodec(){}
+
+    /**
+     * Read the device time zone again, after it has changed
+     */
+    public static void refreshDefaultZone(){
+        defaultZone = TimeZone.getDefault();
+    }
+
+    //parsing
+
+    /**
+     * @param dateTime Format: YYYY-MM-DD HH:MM, fields do not need to be zero padded and seconds are ignored if present
+     * @return millis since epoch of that local time in the default time zone
+     * @throws IllegalArgumentException if dateTime is not in the expected format or is not a date on the calendar
+     */
+    public static long parse(String dateTime){
+        if(dateTime == null) throw new IllegalArgumentException("Missing date and time");
+        int split = dateTime.indexOf(' ');
+        if(split < 0) throw new IllegalArgumentException("Bad date and time: " + dateTime);
+        return parse(dateTime, 0, split, dateTime, split + 1, dateTime.length(), defaultZone);
+    }
+
+    /**
+     * @param date Format: YYYY-MM-DD
+     * @param time Format: HH:MM, seconds are ignored if present
+     * @return millis since epoch of that local time in the default time zone
+     * @throws IllegalArgumentException if date or time are not in the expected format, or the date is not on the calendar
+     */
+    public static long parse(String date, String time){
+        return parse(date, time, defaultZone);
+    }
+
+    /**
+     * @param date Format: YYYY-MM-DD
+     * @param time Format: HH:MM, seconds are ignored if present
+     * @param zone time zone the date and time are local to
+     * @return millis since epoch
+     * @throws IllegalArgumentException if date or time are not in the expected format, or the date is not on the calendar
+     */
+    public static long parse(String date, String time, TimeZone zone){
+        if(date == null || time == null) throw new IllegalArgumentException("Missing date or time");
+        return parse(date, 0, date.length(), time, 0, time.length(), zone);
+    }
+
+    private static long parse(String date, int dateStart, int dateEnd, String time, int timeStart, int timeEnd, TimeZone zone){
+        //[year, month, day] and [hour, minute]
+        int year, month, day, hour, minute;
+        try {
+            long fields = readFields(date, dateStart, dateEnd, '-', 3);
+            year = (int) (fields >>> 32);
+            month = (int) (fields >>> 16 & 0xFFFF);
+            day = (int) (fields & 0xFFFF);
+            fields = readFields(time, timeStart, timeEnd, ':', 2);
+            hour = (int) (fields >>> 16 & 0xFFFF);
+            minute = (int) (fields & 0xFFFF);
+        } catch(IllegalArgumentException e){
+            throw badInput(date, dateStart, dateEnd, time, timeStart, timeEnd);
+        }
+        if(month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour > 23 || minute > 59){
+            throw badInput(date, dateStart, dateEnd, time, timeStart, timeEnd);
+        }
+        long local = daysFromCivil(year, month, day) * MILLIS_PER_DAY + (hour * 60L + minute) * MILLIS_PER_MINUTE;
+        return localToUtc(local, zone);
+    }
+
+    private static IllegalArgumentException badInput(String date, int dateStart, int dateEnd, String time, int timeStart, int timeEnd){
+        return new IllegalArgumentException("Bad date or time: " + date.substring(dateStart, dateEnd)
+                + " " + time.substring(timeStart, timeEnd));
+    }
+
+    /*
+    Reads count numbers separated by separator from s[start, end). Surrounding spaces are skipped,
+    anything after the count-th number and a following separator (such as seconds) is ignored.
+    Returns them packed as first << 32 | second << 16 | third, or second << 16 | third when count is 2
+     */
+    private static long readFields(String s, int start, int end, char separator, int count){
+        while(start < end && s.charAt(start) == ' ') start++;
+        while(end > start && s.charAt(end - 1) == ' ') end--;
+        long packed = 0;
+        int i = start;
+        for(int field = 0; field < count; field++){
+            int value = 0;
+            int digits = 0;
+            while(i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9'){
+                value = value * 10 + (s.charAt(i) - '0');
+                digits++;
+                i++;
+            }
+            if(digits == 0 || digits > 4) throw new IllegalArgumentException();
+            packed = (packed << 16) | value;
+            if(field < count - 1){
+                if(i >= end || s.charAt(i) != separator) throw new IllegalArgumentException();
+                i++;
+            }
+        }
+        if(i < end && s.charAt(i) != separator) throw new IllegalArgumentException();
+        return packed;
+    }
+
+    //formatting
+
+    /**
+     * @param epochMillis
+     * @return YYYY-MM-DD HH:MM in the default time zone
+     */
+    public static String format(long epochMillis){
+        long local = toLocal(epochMillis, defaultZone);
+        char[] out = new char[16];
+        writeDate(out, 0, local);
+        out[10] = ' ';
+        writeTime(out, 11, local);
+        return new String(out);
+    }
+
+    /**
+     * @param epochMillis
+     * @return YYYY-MM-DD in the default time zone
+     */
+    public static String formatDate(long epochMillis){
+        return formatDate(epochMillis, defaultZone);
+    }
+
+    /**
+     * @param epochMillis
+     * @param zone
+     * @return YYYY-MM-DD in zone
+     */
+    public static String formatDate(long epochMillis, TimeZone zone){
+        char[] out = new char[10];
+        writeDate(out, 0, toLocal(epochMillis, zone));
+        return new String(out);
+    }
+
+    /**
+     * @param epochMillis
+     * @return HH:MM in the default time zone
+     */
+    public static String formatTime(long epochMillis){
+        return formatTime(epochMillis, defaultZone);
+    }
+
+    /**
+     * @param epochMillis
+     * @param zone
+     * @return HH:MM in zone
+     */
+    public static String formatTime(long epochMillis, TimeZone zone){
+        char[] out = new char[5];
+        writeTime(out, 0, toLocal(epochMillis, zone));
+        return new String(out);
+    }
+
+    private static void writeDate(char[] out, int at, long local){
+        long days = floorDiv(local, MILLIS_PER_DAY);
+        //civil from days, see daysFromCivil
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+
+        out[at] = (char) ('0' + year / 1000 % 10);
+        out[at + 1] = (char) ('0' + year / 100 % 10);
+        out[at + 2] = (char) ('0' + year / 10 % 10);
+        out[at + 3] = (char) ('0' + year % 10);
+        out[at + 4] = '-';
+        out[at + 5] = (char) ('0' + month / 10);
+        out[at + 6] = (char) ('0' + month % 10);
+        out[at + 7] = '-';
+        out[at + 8] = (char) ('0' + day / 10);
+        out[at + 9] = (char) ('0' + day % 10);
+    }
+
+    private static void writeTime(char[] out, int at, long local){
+        int minuteOfDay = (int) ((local - floorDiv(local, MILLIS_PER_DAY) * MILLIS_PER_DAY) / MILLIS_PER_MINUTE);
+        int hour = minuteOfDay / 60;
+        int minute = minuteOfDay % 60;
+        out[at] = (char) ('0' + hour / 10);
+        out[at + 1] = (char) ('0' + hour % 10);
+        out[at + 2] = ':';
+        out[at + 3] = (char) ('0' + minute / 10);
+        out[at + 4] = (char) ('0' + minute % 10);
+    }
+
+    //time zones and the calendar
+
+    private static long toLocal(long epochMillis, TimeZone zone){
+        return epochMillis + zone.getOffset(epochMillis);
+    }
+
+    /*
+    The offset depends on the instant, which is what is being solved for. Try the offsets in force
+    a little before and after; local times repeated by a DST change resolve to the earlier instant
+    and local times skipped by one move forward, the same as java.time
+     */
+    private static long localToUtc(long local, TimeZone zone){
+        //the raw offset is today's, it can be a day off for zones that have changed theirs
+        long guess = local - zone.getOffset(local - zone.getRawOffset());
+        int before = zone.getOffset(guess - TRANSITION_WINDOW);
+        int after = zone.getOffset(guess + TRANSITION_WINDOW);
+        int larger = Math.max(before, after);
+        int smaller = Math.min(before, after);
+        if(zone.getOffset(local - larger) == larger) return local - larger;
+        if(zone.getOffset(local - smaller) == smaller) return local - smaller;
+        return local - before;
+    }
+
+    /*
+    Days since 1970-01-01 of a proleptic Gregorian date. From Howard Hinnant's
+    "chrono-Compatible Low-Level Date Algorithms"
+     */
+    static long daysFromCivil(int year, int month, int day){
+        long y = month <= 2 ? year - 1 : year;
+        long era = floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+
+    static int daysInMonth(int year, int month){
+        if(month == 2){
+            boolean leap = year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+            return leap ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    //Math.floorDiv needs API 24
+    private static long floorDiv(long x, long y){
+        long q = x / y;
+        return (x % y != 0 && (x < 0) != (y < 0)) ? q - 1 : q;
+    }
+}
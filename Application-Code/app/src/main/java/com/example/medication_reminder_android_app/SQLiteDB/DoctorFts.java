@@ -0,0 +1,45 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full text index over the searchable columns of DoctorTable.
+ * Room keeps it in sync with DoctorTable through triggers.
+ */
+@Fts4(contentEntity = DoctorEntity.class)
+@Entity(tableName = "DoctorFts")
+public class DoctorFts {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowId; //same as the primary key of the row in DoctorTable
+
+    @ColumnInfo(name = "doctor_name")
+    private String drName;
+
+    @ColumnInfo(name = "hospital_name")
+    private String hospitalName;
+
+    @ColumnInfo(name = "office_location")
+    private String officeLoc;
+
+    //getters
+    public long getRowId() { return this.rowId; }
+
+    public String getDrName() { return this.drName; }
+
+    public String getHospitalName() { return this.hospitalName; }
+
+    public String getOfficeLoc() { return this.officeLoc; }
+
+    //setters
+    public void setRowId(long rowId) { this.rowId = rowId; }
+
+    public void setDrName(String drName) { this.drName = drName; }
+
+    public void setHospitalName(String hospitalName) { this.hospitalName = hospitalName; }
+
+    public void setOfficeLoc(String officeLoc) { this.officeLoc = officeLoc; }
+}
@@ -0,0 +1,67 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * One row per scheduled dose of a medication, expanded from its time rule a few days ahead by
+ * DoseOccurrenceGenerator. Upcoming doses and adherence are range reads on due_at instead of
+ * being recomputed from time rule strings.
+ */
+@Entity(tableName = "DoseOccurrenceTable",
+        foreignKeys = {@ForeignKey(entity = MedicationEntity.class, parentColumns = "primaryKey",
+                childColumns = "med_id", onDelete = ForeignKey.CASCADE)},
+        indices = {@Index(value = {"med_id", "due_at"}, unique = true), @Index(value = {"due_at"})})
+public class DoseOccurrenceEntity {
+    //status values
+    public static final int PENDING = 0;
+    public static final int TAKEN = 1;
+    public static final int SKIPPED = 2;
+
+    @PrimaryKey(autoGenerate = true)
+    private long primaryKey;
+
+    @ColumnInfo(name = "med_id")
+    private long medId; //primary key of the medication
+
+    @ColumnInfo(name = "due_at")
+    private long dueAt; //epoch millis
+
+    @ColumnInfo(name = "status")
+    private int status; //PENDING, TAKEN or SKIPPED
+
+    @ColumnInfo(name = "acted_at")
+    private Long actedAt; //epoch millis the dose was taken or skipped, null while pending
+
+    public DoseOccurrenceEntity(long medId, long dueAt, int status, Long actedAt){
+        this.medId = medId;
+        this.dueAt = dueAt;
+        this.status = status;
+        this.actedAt = actedAt;
+    }
+
+    //getters
+    public long getPrimaryKey() { return this.primaryKey; }
+
+    public long getMedId() { return this.medId; }
+
+    public long getDueAt() { return this.dueAt; }
+
+    public int getStatus() { return this.status; }
+
+    public Long getActedAt() { return this.actedAt; }
+
+    //setters
+    public void setPrimaryKey(long primaryKey) { this.primaryKey = primaryKey; }
+
+    public void setMedId(long medId) { this.medId = medId; }
+
+    public void setDueAt(long dueAt) { this.dueAt = dueAt; }
+
+    public void setStatus(int status) { this.status = status; }
+
+    public void setActedAt(Long actedAt) { this.actedAt = actedAt; }
+}
@@ -0,0 +1,68 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expands each medication's TimeRuleSchedule into DoseOccurrenceTable rows up to a rolling horizon.
+ *
+ * Each run starts from the latest occurrence already stored for a medication (one lookup on the
+ * (med_id, due_at) index), so the work done is proportional to the occurrences that are new since
+ * the last run. Rows are inserted with IGNORE, so running it twice, or concurrently with a
+ * medication insert that generated its own rows, is harmless. Must be run on the database writer.
+ */
+final class DoseOccurrenceGenerator {
+
+    static final long HORIZON_MILLIS = 7 * 24 * 60 * 60 * 1000L;
+
+    private static final String TAG = "app-schedule";
+
+    private DoseOccurrenceGenerator(){}
+
+    /**
+     * Top up every medication to now + HORIZON_MILLIS
+     * @param dao
+     * @param now epoch millis
+     * @return number of occurrences added
+     */
+    static int topUpAll(DataAccessObject dao, long now){
+        int added = 0;
+        for(MedicationEntity m : dao.getAllMedsNow()){
+            added += topUp(dao, m, now);
+        }
+        return added;
+    }
+
+    /**
+     * Top up one medication to now + HORIZON_MILLIS
+     * @param dao
+     * @param m
+     * @param now epoch millis
+     * @return number of occurrences added
+     */
+    static int topUp(DataAccessObject dao, MedicationEntity m, long now){
+        TimeRuleSchedule schedule;
+        try {
+            schedule = TimeRuleSchedule.forMedication(m);
+        } catch(IllegalArgumentException e){
+            Log.d(TAG, "Medication " + m.getPrimaryKey() + " has no usable first date, not generating doses", e);
+            return 0;
+        }
+        Long last = dao.getLastOccurrenceDueAt(m.getPrimaryKey());
+        //a medication seen for the first time starts from now; doses before now were never reminded of
+        long from = last != null ? last : Math.max(now, schedule.getFirstDueAt()) - 1;
+
+        long horizon = now + HORIZON_MILLIS;
+        List<DoseOccurrenceEntity> occurrences = new ArrayList<>();
+        TimeRuleSchedule.Cursor cursor = schedule.cursorAfter(from);
+        long due;
+        while((due = cursor.next()) != TimeRuleSchedule.NONE && due <= horizon){
+            occurrences.add(new DoseOccurrenceEntity(m.getPrimaryKey(), due, DoseOccurrenceEntity.PENDING, null));
+        }
+        if(occurrences.isEmpty()) return 0;
+        dao.insertDoseOccurrences(occurrences);
+        return occurrences.size();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import android.util.LruCache;
+
+/**
+ * Bounded in-memory cache of medications and reminders looked up by key, shared by every
+ * DatabaseRepository so lookups repeated while a notification is built or acknowledged do not
+ * go back to the database.
+ *
+ * The repository invalidates keys when a write is queued and again once it has committed.
+ * Every invalidation moves the generation forward, and a value read from the database is only
+ * cached if no invalidation happened while it was being read, so a read that raced a write
+ * can never put the old row back.
+ *
+ * Entities are mutable, so the cache keeps copies of what it is given and hands out copies of
+ * what it holds. A caller changing an entity it got from the cache changes only its own copy.
+ */
+public final class EntityCache {
+
+    private static final int MAX_MEDICATIONS = 64;
+    private static final int MAX_REMINDERS = 128;
+
+    private static volatile EntityCache INSTANCE;
+
+    private final LruCache<Long, MedicationEntity> medications = new LruCache<>(MAX_MEDICATIONS);
+    private final LruCache<String, Long> medicationIdsByName = new LruCache<>(MAX_MEDICATIONS);
+    private final LruCache<Long, ReminderEntity> reminders = new LruCache<>(MAX_REMINDERS);
+    private long generation;
+
+    private EntityCache(){}
+
+    public static EntityCache getInstance(){
+        if(INSTANCE == null){
+            synchronized (EntityCache.class){
+                if(INSTANCE == null){
+                    INSTANCE = new EntityCache();
+                }
+            }
+        }
+        return INSTANCE;
+    }
+
+    /**
+     * @return the generation to pass to put methods for a value about to be read from the database
+     */
+    synchronized long generation(){ return generation; }
+
+    //lookups, null on a miss
+
+    MedicationEntity getMedication(long medId){ return copyOf(medications.get(medId)); }
+
+    synchronized MedicationEntity getMedicationByName(String medName){
+        Long medId = medicationIdsByName.get(medName);
+        return medId == null ? null : copyOf(medications.get(medId));
+    }
+
+    ReminderEntity getReminder(long reminderId){
+        ReminderEntity r = reminders.get(reminderId);
+        return r == null ? null : r.copy();
+    }
+
+    //fills, ignored if anything was invalidated since readGeneration
+
+    synchronized void putMedication(long readGeneration, MedicationEntity m){
+        if(readGeneration == generation) medications.put(m.getPrimaryKey(), m.copy());
+    }
+
+    synchronized void putMedication(long readGeneration, String medName, MedicationEntity m){
+        if(readGeneration == generation){
+            medications.put(m.getPrimaryKey(), m.copy());
+            medicationIdsByName.put(medName, m.getPrimaryKey());
+        }
+    }
+
+    synchronized void putReminder(long readGeneration, ReminderEntity r){
+        if(readGeneration == generation) reminders.put(r.getPrimaryKey(), r.copy());
+    }
+
+    private static MedicationEntity copyOf(MedicationEntity m){
+        return m == null ? null : m.copy();
+    }
+
+    //invalidation
+
+    synchronized void invalidateMedication(long medId){
+        generation++;
+        medications.remove(medId);
+    }
+
+    synchronized void invalidateMedicationName(String medName){
+        generation++;
+        if(medName == null) return;
+        Long medId = medicationIdsByName.remove(medName);
+        if(medId != null) medications.remove(medId);
+    }
+
+    synchronized void invalidateReminder(long reminderId){
+        generation++;
+        reminders.remove(reminderId);
+    }
+
+    synchronized void clearMedications(){
+        generation++;
+        medications.evictAll();
+        medicationIdsByName.evictAll();
+    }
+
+    synchronized void clearReminders(){
+        generation++;
+        reminders.evictAll();
+    }
+
+    //counters, summed over the medication and reminder caches
+
+    public int getHitCount(){ return medications.hitCount() + reminders.hitCount(); }
+
+    public int getMissCount(){ return medications.missCount() + reminders.missCount(); }
+
+    public int getEvictionCount(){ return medications.evictionCount() + reminders.evictionCount(); }
+
+    @Override
+    public String toString(){
+        return "EntityCache{hits=" + getHitCount() + ", misses=" + getMissCount()
+                + ", evictions=" + getEvictionCount() + "}";
+    }
+}
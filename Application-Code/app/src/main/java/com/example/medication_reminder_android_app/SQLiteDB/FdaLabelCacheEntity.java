@@ -0,0 +1,47 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * An openFDA label search and its results as they were when fetched, so the same search can be
+ * answered without the network. See FDADatabaseHandler.LabelCache
+ */
+@Entity(tableName = "FdaLabelCache")
+public class FdaLabelCacheEntity {
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "query")
+    private String query; //result limit and normalized search text, see LabelCache.key
+
+    @ColumnInfo(name = "fetched_at")
+    private long fetchedAt; //epoch millis
+
+    @NonNull
+    @ColumnInfo(name = "labels")
+    private String labels; //the results as a JSON array
+
+    public FdaLabelCacheEntity(@NonNull String query, long fetchedAt, @NonNull String labels){
+        this.query = query;
+        this.fetchedAt = fetchedAt;
+        this.labels = labels;
+    }
+
+    //getters
+    @NonNull
+    public String getQuery() { return this.query; }
+
+    public long getFetchedAt() { return this.fetchedAt; }
+
+    @NonNull
+    public String getLabels() { return this.labels; }
+
+    //setters
+    public void setQuery(@NonNull String query) { this.query = query; }
+
+    public void setFetchedAt(long fetchedAt) { this.fetchedAt = fetchedAt; }
+
+    public void setLabels(@NonNull String labels) { this.labels = labels; }
+}
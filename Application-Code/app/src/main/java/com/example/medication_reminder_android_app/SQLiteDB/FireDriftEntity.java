@@ -0,0 +1,50 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+/**
+ * How late the reminder alarm fired, one row per firing. Only the most recent samples are kept,
+ * see DatabaseRepository.recordFireDrift. drift_millis is indexed so percentiles are read from
+ * the index in order instead of sorting the table.
+ */
+@Entity(tableName = "FireDriftTable", indices = {@Index(value = {"drift_millis"})})
+public class FireDriftEntity {
+    @PrimaryKey(autoGenerate = true)
+    private long primaryKey;
+
+    @ColumnInfo(name = "scheduled_at")
+    private long scheduledAt; //epoch millis the alarm was set for
+
+    @ColumnInfo(name = "fired_at")
+    private long firedAt; //epoch millis NotificationPublisher received it
+
+    @ColumnInfo(name = "drift_millis")
+    private long driftMillis; //fired_at - scheduled_at, negative if it fired early
+
+    public FireDriftEntity(long scheduledAt, long firedAt){
+        this.scheduledAt = scheduledAt;
+        this.firedAt = firedAt;
+        this.driftMillis = firedAt - scheduledAt;
+    }
+
+    //getters
+    public long getPrimaryKey() { return this.primaryKey; }
+
+    public long getScheduledAt() { return this.scheduledAt; }
+
+    public long getFiredAt() { return this.firedAt; }
+
+    public long getDriftMillis() { return this.driftMillis; }
+
+    //setters
+    public void setPrimaryKey(long primaryKey) { this.primaryKey = primaryKey; }
+
+    public void setScheduledAt(long scheduledAt) { this.scheduledAt = scheduledAt; }
+
+    public void setFiredAt(long firedAt) { this.firedAt = firedAt; }
+
+    public void setDriftMillis(long driftMillis) { this.driftMillis = driftMillis; }
+}
@@ -0,0 +1,35 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+/**
+ * Summary of how late the reminder alarm has been firing, over the samples in FireDriftTable
+ */
+public final class FireDriftStats {
+    private final int samples;
+    private final long p50; //millis
+    private final long p95;
+    private final long p99;
+    private final int lateOverOneMinute;
+    private final int lateOverTenMinutes;
+
+    public FireDriftStats(int samples, long p50, long p95, long p99, int lateOverOneMinute, int lateOverTenMinutes){
+        this.samples = samples;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.lateOverOneMinute = lateOverOneMinute;
+        this.lateOverTenMinutes = lateOverTenMinutes;
+    }
+
+    //getters
+    public int getSamples() { return this.samples; }
+
+    public long getP50() { return this.p50; }
+
+    public long getP95() { return this.p95; }
+
+    public long getP99() { return this.p99; }
+
+    public int getLateOverOneMinute() { return this.lateOverOneMinute; }
+
+    public int getLateOverTenMinutes() { return this.lateOverTenMinutes; }
+}
@@ -0,0 +1,23 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+/**
+ * Row returned by the full text search queries, before it is ranked into a SearchHit
+ */
+public class FtsMatch {
+    private final long rowId;
+    private final String title;
+    private final byte[] matchInfo; //output of matchinfo(table, 'pcx')
+
+    public FtsMatch(long rowId, String title, byte[] matchInfo){
+        this.rowId = rowId;
+        this.title = title;
+        this.matchInfo = matchInfo;
+    }
+
+    //getters
+    public long getRowId() { return this.rowId; }
+
+    public String getTitle() { return this.title; }
+
+    public byte[] getMatchInfo() { return this.matchInfo; }
+}
@@ -0,0 +1,73 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Locale;
+
+/**
+ * Helpers for the FTS4 tables: turning what the user typed into a MATCH expression, and scoring
+ * rows from their matchinfo so results from different tables can be ranked together.
+ */
+final class FullTextSearch {
+
+    private FullTextSearch(){}
+
+    /**
+     * Builds a MATCH expression where every word the user typed has to appear as a word prefix.
+     * Anything that is not a letter or digit is treated as a separator, so user input can never
+     * be read as FTS query syntax.
+     * @param userInput
+     * @return the expression, or null if the input has no words in it
+     */
+    static String toMatchQuery(String userInput){
+        if(userInput == null){
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        String input = userInput.toLowerCase(Locale.ROOT);
+        for(int i = 0; i <= input.length(); i++){
+            char c = i < input.length() ? input.charAt(i) : ' ';
+            if(Character.isLetterOrDigit(c)){
+                word.append(c);
+            } else if(word.length() > 0){
+                if(query.length() > 0) query.append(' ');
+                query.append(word).append('*');
+                word.setLength(0);
+            }
+        }
+        return query.length() == 0 ? null : query.toString();
+    }
+
+    /**
+     * Scores a row from matchinfo(table, 'pcx'): for every phrase and column, the hits in this row
+     * divided by the hits in all rows, times the weight of the column. Rare terms found in heavily
+     * weighted columns score highest.
+     * @param matchInfo
+     * @param columnWeights one weight per column of the FTS table, in declaration order
+     * @return
+     */
+    static double rank(byte[] matchInfo, double[] columnWeights){
+        if(matchInfo == null || matchInfo.length < 8){
+            return 0;
+        }
+        ByteBuffer info = ByteBuffer.wrap(matchInfo).order(ByteOrder.nativeOrder());
+        int phrases = info.getInt(0);
+        int columns = info.getInt(4);
+        double score = 0;
+        for(int phrase = 0; phrase < phrases; phrase++){
+            for(int column = 0; column < columns && column < columnWeights.length; column++){
+                int offset = 4 * (2 + 3 * (phrase * columns + column));
+                if(offset + 8 > matchInfo.length){
+                    return score;
+                }
+                int hitsInRow = info.getInt(offset);
+                int hitsInAllRows = info.getInt(offset + 4);
+                if(hitsInRow > 0 && hitsInAllRows > 0){
+                    score += columnWeights[column] * hitsInRow / hitsInAllRows;
+                }
+            }
+        }
+        return score;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.room.InvalidationTracker;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how often Room invalidates each table and how often each counted LiveData re-emits,
+ * so the number of UI refreshes a change causes can be measured. Counts are kept for the life of
+ * the process and logged under app-db-invalidation.
+ */
+public final class InvalidationCounter {
+
+    private static final String TAG = "app-db-invalidation";
+    private static final String[] TABLES = {"MedicationTable", "MedicationStateTable", "MedicationTagTable",
+            "AcknowledgementTable", "ReminderTable", "DoctorTable", "AppointmentTable"};
+
+    private static final ConcurrentHashMap<String, AtomicLong> invalidations = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<String, AtomicLong> emissions = new ConcurrentHashMap<>();
+
+    private InvalidationCounter(){}
+
+    /**
+     * Start counting invalidations of the database's tables
+     * @param db
+     */
+    static void register(AppDatabase db){
+        db.getInvalidationTracker().addObserver(new InvalidationTracker.Observer(TABLES) {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                for(String table : tables){
+                    long count = increment(invalidations, table);
+                    Log.d(TAG, table + " invalidated " + count + " times");
+                }
+            }
+        });
+    }
+
+    /**
+     * Wrap a LiveData so every value it emits is counted under name
+     * @param name
+     * @param source
+     * @return LiveData emitting the same values as source
+     */
+    static <T> LiveData<T> countEmissions(String name, LiveData<T> source){
+        MediatorLiveData<T> counted = new MediatorLiveData<>();
+        counted.addSource(source, value -> {
+            long count = increment(emissions, name);
+            Log.d(TAG, name + " emitted " + count + " times");
+            counted.setValue(value);
+        });
+        return counted;
+    }
+
+    /**
+     * @return number of invalidations per table since the process started
+     */
+    public static Map<String, Long> getInvalidationCounts(){ return snapshot(invalidations); }
+
+    /**
+     * @return number of emissions per counted LiveData since the process started
+     */
+    public static Map<String, Long> getEmissionCounts(){ return snapshot(emissions); }
+
+    private static long increment(ConcurrentHashMap<String, AtomicLong> counts, String key){
+        AtomicLong count = counts.get(key);
+        if(count == null){
+            AtomicLong created = new AtomicLong();
+            count = counts.putIfAbsent(key, created);
+            if(count == null) count = created;
+        }
+        return count.incrementAndGet();
+    }
+
+    private static Map<String, Long> snapshot(ConcurrentHashMap<String, AtomicLong> counts){
+        Map<String, Long> copy = new TreeMap<>();
+        for(Map.Entry<String, AtomicLong> entry : counts.entrySet()){
+            copy.put(entry.getKey(), entry.getValue().get());
+        }
+        return copy;
+    }
+}
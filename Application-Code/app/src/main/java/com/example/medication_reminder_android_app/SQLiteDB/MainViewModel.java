@@ -7,11 +7,17 @@ import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Transformations;
+import androidx.paging.PagedList;
 
+import com.example.medication_reminder_android_app.FDADatabaseHandler.LabelEnricher;
 import com.example.medication_reminder_android_app.NotificationRelay.Notifications;
+import com.example.medication_reminder_android_app.NotificationRelay.ReminderScheduler;
 
+import java.util.Collection;
 import java.util.List;
 
+import io.reactivex.Completable;
 import io.reactivex.Scheduler;
 import io.reactivex.Single;
 import io.reactivex.annotations.NonNull;
@@ -25,20 +31,50 @@ import io.reactivex.schedulers.Schedulers;
 
 public class MainViewModel extends AndroidViewModel {
     public final DatabaseRepository repository;
-    private final LiveData<List<MedicationEntity>> meds;
+    private final MutableLiveData<String> medSearchQuery = new MutableLiveData<>("");
+    private final LiveData<PagedList<MedicationSummary>> meds;
 
     public MainViewModel(Application application){
         super(application);
-        repository = new DatabaseRepository(application);
-        meds = repository.getAllMeds();
+        repository = DatabaseRepository.getInstance(application);
+        meds = InvalidationCounter.countEmissions("medication-list",
+                Transformations.switchMap(medSearchQuery, repository::pageMedications));
+        repository.topUpDoseOccurrences(); //runs on the database writer, at most hourly
     }
 
     /**
      * @author Hayley Roberts
-     * Return all of the medications in the Medication Table
+     * Return the medications in the Medication Table matching the current search text,
+     * or all of them if there is no search text, paged so only what is near the screen is loaded
      * @return
      */
-    public LiveData<List<MedicationEntity>> getMeds(){ return meds; }
+    public LiveData<PagedList<MedicationSummary>> getMeds(){ return meds; }
+
+    /**
+     * Set the search text used to filter getMeds()
+     * @param query text as the user typed it
+     */
+    public void setMedSearchQuery(String query){ medSearchQuery.setValue(query); }
+
+    /**
+     * Search medications, doctors and appointments
+     * @param query text as the user typed it
+     * @return hits from every table, best match first
+     */
+    public Single<List<SearchHit>> search(String query){
+        return repository.search(query);
+    }
+
+    /**
+     * Get the medications that have any of the tags, or all of them if matchAll is true.
+     * An empty tag collection returns every medication.
+     * @param tags
+     * @param matchAll
+     * @return
+     */
+    public LiveData<List<MedicationEntity>> filterMedications(Collection<String> tags, boolean matchAll){
+        return repository.filterMedications(tags, matchAll);
+    }
 
     /**
      * @author Hayley Roberts
@@ -80,6 +116,15 @@ public class MainViewModel extends AndroidViewModel {
         return repository.getReminderById(reminderId);
     }
 
+    /**
+     * Get a reminder together with the name of the medication or appointment it is for
+     * @param reminderId
+     * @return
+     */
+    public Single<ReminderWithTarget> getReminderWithTarget(long reminderId){
+        return repository.getReminderWithTarget(reminderId);
+    }
+
     /**
      * @author Hayley Roberts
      * Insert a medication into Medication table
@@ -92,13 +137,14 @@ public class MainViewModel extends AndroidViewModel {
      * @param inputWarnings
      * @param inputIngredients
      * @param inputTags
+     * @return Single that emits the primary key of the medication once it is written
      */
-    public void insertMedication(String medicationName, String inputDosage, boolean ifRecurring, String firstDate, String endDate,
+    public Single<Long> insertMedication(String medicationName, String inputDosage, boolean ifRecurring, String firstDate, String endDate,
                                  String inputTimeRule, String inputWarnings, String inputIngredients, String inputTags){
         Integer recurringBool = ifRecurring? 1 : 0;
         MedicationEntity medication = new MedicationEntity(medicationName, inputDosage, recurringBool, firstDate, endDate,
-                inputTimeRule, 0, "", inputWarnings, inputIngredients, inputTags);
-        repository.insertMed(medication);
+                inputTimeRule, inputWarnings, inputIngredients, inputTags);
+        return enrichOnceWritten(repository.insertMed(medication));
     }
 
     /**
@@ -109,10 +155,12 @@ public class MainViewModel extends AndroidViewModel {
      * @param date
      * @param timeIntervalIndex
      * @param medApptId
+     * @return Single that emits the primary key of the reminder once it is written
      */
-    public void insertReminder(String classification, String time, String date, Integer timeIntervalIndex, long medApptId){
+    public Single<Long> insertReminder(String classification, String time, String date, Integer timeIntervalIndex, long medApptId){
         ReminderEntity reminder = new ReminderEntity(classification, time, date, timeIntervalIndex, medApptId);
-        repository.insertReminder(reminder);
+        reminder.setDueAtEpochMillis(DateConverters.toEpochMillis(date, time));
+        return repository.insertReminder(reminder);
     }
 
     /**
@@ -127,24 +175,83 @@ public class MainViewModel extends AndroidViewModel {
      * @param inputWarnings
      * @param inputIngredients
      * @param inputTags
+     * @return Single that emits the primary key of the reminder once both are written
      */
     //TODO try to get back to not repeatin code from insertMedication
-    public void insertMedAndReminder(String medicationName, String inputDosage, boolean ifRecurring, String firstDate, String endDate,
+    public Single<Long> insertMedAndReminder(String medicationName, String inputDosage, boolean ifRecurring, String firstDate, String endDate,
                                      String inputTimeRule, String inputWarnings, String inputIngredients, String inputTags){
         Integer recurringBool = ifRecurring? 1 : 0;
         MedicationEntity medication = new MedicationEntity(medicationName, inputDosage, recurringBool, firstDate, endDate,
-                inputTimeRule, 0, "", inputWarnings, inputIngredients, inputTags);
-        repository.insertMedAndReminder(medication);
+                inputTimeRule, inputWarnings, inputIngredients, inputTags);
+        return enrichOnceWritten(repository.insertMedAndReminder(medication));
+    }
+
+    //the new medication's FDA label is looked up in the background after it is saved
+    private Single<Long> enrichOnceWritten(Single<Long> inserted){
+        inserted.subscribe(pk -> LabelEnricher.getInstance(getApplication()).requestRun(),
+                e -> Log.d("app-fda-enrich", "Medication was not saved, nothing to enrich", e));
+        return inserted;
     }
 
     /**
-     * @author Hayley Roberts
-     * Update acknowledgement list for a medicatoin entity
+     * Record that a dose of a medication was taken
      * @param m
-     * @param newAcknowedgementList
+     * @param takenAt epoch millis
+     */
+    public Completable insertAcknowledgement(MedicationEntity m, long takenAt){
+        return repository.insertAcknowledgement(m, takenAt);
+    }
+
+    /**
+     * Acknowledge or dismiss a medication reminder and move it on to its next dose, in one transaction
+     * @param reminderId
+     * @param expectedDueAt the reminder's due_at when its notification was posted
+     * @param dismissed true if the dose was skipped
+     * @param now epoch millis
+     * @return Single that emits when the reminder is next due, or TimeRuleSchedule.NONE if it is not due again
      */
-    public void updateAcknowledgements(MedicationEntity m, String newAcknowedgementList){
-        repository.updateAcknowledgements(m, newAcknowedgementList);
+    public Single<Long> acknowledgeReminder(long reminderId, long expectedDueAt, boolean dismissed, long now){
+        return repository.acknowledgeReminder(reminderId, expectedDueAt, dismissed, now);
+    }
+
+    /**
+     * Get how late the reminder alarm has been firing
+     * @return
+     */
+    public Single<FireDriftStats> getFireDriftStats(){
+        return repository.getFireDriftStats();
+    }
+
+    /**
+     * Get the doses of every medication due in the window [from, to), soonest first
+     * @param from epoch millis
+     * @param to epoch millis
+     * @return
+     */
+    public Single<List<DoseOccurrenceEntity>> getDoseOccurrencesBetween(long from, long to){
+        return repository.getDoseOccurrencesBetween(from, to);
+    }
+
+    /**
+     * Get how many doses of a medication in the window [from, to) were scheduled, taken and skipped
+     * @param medId
+     * @param from epoch millis
+     * @param to epoch millis
+     * @return
+     */
+    public Single<AdherenceCount> getAdherence(long medId, long from, long to){
+        return repository.getAdherence(medId, from, to);
+    }
+
+    /**
+     * Get the acknowledgements of a medication in the window [from, to)
+     * @param medId
+     * @param from epoch millis
+     * @param to epoch millis
+     * @return
+     */
+    public Single<List<AcknowledgementEntity>> getAcknowledgementsBetween(long medId, long from, long to){
+        return repository.getAcknowledgementsBetween(medId, from, to);
     }
 
 
@@ -156,8 +263,8 @@ public class MainViewModel extends AndroidViewModel {
      * @param time
      * @param timeIntervalIndex
      */
-    public void updateReminderDateAndTime(ReminderEntity r, String date, String time, int timeIntervalIndex){
-        repository.updateReminderDateAndTime(r, date, time, timeIntervalIndex);
+    public Completable updateReminderDateAndTime(ReminderEntity r, String date, String time, int timeIntervalIndex){
+        return repository.updateReminderDateAndTime(r, date, time, timeIntervalIndex);
     }
 
 
@@ -169,7 +276,7 @@ public class MainViewModel extends AndroidViewModel {
      * @param medEntity
      */
     public void deleteReminder(MedicationEntity medEntity){
-        repository.deleteReminderById(medEntity.getReminderID());
+        cancelAlarms(repository.deleteMedicationReminders(medEntity.getPrimaryKey()));
     }
 
     //TODO handle with SIngle and threads...
@@ -179,7 +286,9 @@ public class MainViewModel extends AndroidViewModel {
 //    }
 
     public void deleteReminder(ReminderEntity r){
-        repository.deleteReminder(r);
+        repository.deleteReminder(r)
+                .subscribe(() -> ReminderScheduler.getInstance(getApplication()).cancel(r.getPrimaryKey()),
+                        e -> Log.d("app-scheduler", "Could not delete reminder " + r.getPrimaryKey(), e));
     }
 
     /**
@@ -188,8 +297,8 @@ public class MainViewModel extends AndroidViewModel {
      * @param m
      */
     public void deleteMedication(MedicationEntity m){
+        cancelAlarms(repository.deleteMedicationReminders(m.getPrimaryKey()));
         repository.deleteMed(m);
-        repository.deleteReminderById(m.getReminderID());
     }
 
     /**
@@ -197,10 +306,8 @@ public class MainViewModel extends AndroidViewModel {
      * Delete a medication from MEdication Table, and its associated reminder
      * @param medName
      */
-    //TODO make this delete the reminderEntity associated with med
     public void deleteMedication(String medName){
-        repository.deleteMedByName(medName);
-        //repository.deleteReminder(m);
+        cancelAlarms(repository.deleteMedByName(medName));
     }
 
 
@@ -212,7 +319,7 @@ public class MainViewModel extends AndroidViewModel {
      */
     public void deleteAllMedications(){
         repository.deleteAllMeds();
-        repository.deleteAllMedReminders();
+        cancelAlarms(repository.deleteAllMedReminders());
     }
 
     /**
@@ -220,7 +327,13 @@ public class MainViewModel extends AndroidViewModel {
      * Delete all Remidners from the Reminder Table
      */
     public void deleteAllReminders(){
-        repository.deleteAllReminders();
+        cancelAlarms(repository.deleteAllReminders());
+    }
+
+    //a deleted reminder left in the scheduler would still wake the device when it comes due
+    private void cancelAlarms(Single<List<Long>> deletedReminderIds){
+        deletedReminderIds.subscribe(ReminderScheduler.getInstance(getApplication())::cancel,
+                e -> Log.d("app-scheduler", "Could not delete reminders", e));
     }
 
 
@@ -33,12 +33,6 @@ public class MedicationEntity {
     @ColumnInfo (name = "time_rule")
     private String timeRule;
 
-    @ColumnInfo (name  = "reminder_id")
-    private long reminderID;
-
-    @ColumnInfo (name = "acknowledgements")
-    private String acknowledgements;
-
     @ColumnInfo (name = "warnings")
     private String warnings; //this is a comma delimited list of health warnings
 
@@ -48,19 +42,22 @@ public class MedicationEntity {
     @ColumnInfo (name = "tags")
     private String tags;
 
+    @ColumnInfo (name = "purpose")
+    private String purpose; //from the FDA label, see FDADatabaseHandler.LabelEnricher
+
+    @ColumnInfo (name = "fda_checked_at", defaultValue = "0")
+    private long fdaCheckedAt; //epoch millis the FDA label was last looked up, 0 if it has not been
+
     //Constructor
     //TODO start date and end date,
     public MedicationEntity(String medName, String dosage, Integer recurring, String firstDate, String endDate,
-                            String timeRule, long reminderID, String acknowledgements, String warnings,
-                            String ingredients, String tags){
+                            String timeRule, String warnings, String ingredients, String tags){
         this.medName = medName;
         this.dosage = dosage;
         this.recurring = recurring;
         this.firstDate = firstDate;
         this.endDate = endDate;
         this.timeRule = timeRule;
-        this.reminderID = reminderID;
-        this.acknowledgements = acknowledgements;
         this.warnings = warnings;
         this.ingredients = ingredients;
         this.tags = tags;
@@ -91,14 +88,6 @@ public class MedicationEntity {
         return this.timeRule;
     }
 
-    public long getReminderID(){
-        return this.reminderID;
-    }
-
-    public String getAcknowledgements() {
-        return this.acknowledgements;
-    }
-
     public String getWarnings(){
         return this.warnings;
     }
@@ -111,6 +100,10 @@ public class MedicationEntity {
         return this.tags;
     }
 
+    public String getPurpose() { return this.purpose; }
+
+    public long getFdaCheckedAt() { return this.fdaCheckedAt; }
+
 
     //Setter Methods
     public void setPrimaryKey(long primaryKey){ this.primaryKey = primaryKey; }
@@ -135,12 +128,6 @@ public class MedicationEntity {
         this.timeRule = recurringRule;
     }
 
-    public void setReminderID(long reminderId){
-        this.reminderID = reminderId;
-    }
-
-    public void setAcknowledgements(String acknowledgement){ this.acknowledgements = acknowledgement; }
-
     public void setWarnings(String inputWarnings){
         this.warnings = inputWarnings;
     }
@@ -152,4 +139,18 @@ public class MedicationEntity {
     public void setTags(String inputTags){
         this.tags = inputTags;
     }
+
+    public void setPurpose(String purpose) { this.purpose = purpose; }
+
+    public void setFdaCheckedAt(long fdaCheckedAt) { this.fdaCheckedAt = fdaCheckedAt; }
+
+    //a new instance with the same column values, see EntityCache
+    MedicationEntity copy(){
+        MedicationEntity copy = new MedicationEntity(medName, dosage, recurring, firstDate, endDate,
+                timeRule, warnings, ingredients, tags);
+        copy.primaryKey = primaryKey;
+        copy.purpose = purpose;
+        copy.fdaCheckedAt = fdaCheckedAt;
+        return copy;
+    }
 }
@@ -0,0 +1,45 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.PrimaryKey;
+
+/**
+ * Full text index over the searchable columns of MedicationTable.
+ * Room keeps it in sync with MedicationTable through triggers.
+ */
+@Fts4(contentEntity = MedicationEntity.class)
+@Entity(tableName = "MedicationFts")
+public class MedicationFts {
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private long rowId; //same as the primary key of the row in MedicationTable
+
+    @ColumnInfo(name = "med_name")
+    private String medName;
+
+    @ColumnInfo(name = "warnings")
+    private String warnings;
+
+    @ColumnInfo(name = "ingredients")
+    private String ingredients;
+
+    //getters
+    public long getRowId() { return this.rowId; }
+
+    public String getMedName() { return this.medName; }
+
+    public String getWarnings() { return this.warnings; }
+
+    public String getIngredients() { return this.ingredients; }
+
+    //setters
+    public void setRowId(long rowId) { this.rowId = rowId; }
+
+    public void setMedName(String medName) { this.medName = medName; }
+
+    public void setWarnings(String warnings) { this.warnings = warnings; }
+
+    public void setIngredients(String ingredients) { this.ingredients = ingredients; }
+}
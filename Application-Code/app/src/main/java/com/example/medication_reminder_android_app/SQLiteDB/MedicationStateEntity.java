@@ -0,0 +1,46 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.PrimaryKey;
+
+/**
+ * The parts of a medication that change while it is being taken, one row per medication.
+ * Kept out of MedicationTable so that writing them does not invalidate queries on MedicationTable,
+ * such as the medication list.
+ */
+@Entity(tableName = "MedicationStateTable",
+        foreignKeys = {@ForeignKey(entity = MedicationEntity.class, parentColumns = "primaryKey",
+                childColumns = "med_id", onDelete = ForeignKey.CASCADE)})
+public class MedicationStateEntity {
+    @PrimaryKey
+    @ColumnInfo(name = "med_id")
+    private long medId; //primary key of the medication
+
+    @ColumnInfo(name = "reminder_id")
+    private long reminderId; //primary key of the medication's reminder, 0 if it has none
+
+    @ColumnInfo(name = "last_taken_at")
+    private Long lastTakenAt; //epoch millis of the latest acknowledgement, null if never taken
+
+    public MedicationStateEntity(long medId, long reminderId, Long lastTakenAt){
+        this.medId = medId;
+        this.reminderId = reminderId;
+        this.lastTakenAt = lastTakenAt;
+    }
+
+    //getters
+    public long getMedId() { return this.medId; }
+
+    public long getReminderId() { return this.reminderId; }
+
+    public Long getLastTakenAt() { return this.lastTakenAt; }
+
+    //setters
+    public void setMedId(long medId) { this.medId = medId; }
+
+    public void setReminderId(long reminderId) { this.reminderId = reminderId; }
+
+    public void setLastTakenAt(Long lastTakenAt) { this.lastTakenAt = lastTakenAt; }
+}
@@ -0,0 +1,37 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * The columns of a medication that the medication list shows. Loaded instead of MedicationEntity
+ * so the list never reads the warnings and ingredients text, MedViewActivity loads those by primaryKey.
+ * Nothing here comes from ReminderTable or MedicationStateTable, which every acknowledgement writes,
+ * so acknowledging a dose does not reload the list.
+ *
+ * There is no next due time column for the same reason. It would have to come from ReminderTable
+ * or DoseOccurrenceTable, and an acknowledgement writes both. Screens that show it read it for the
+ * rows they show with getDoseOccurrencesBetween instead of through the paged query
+ */
+public class MedicationSummary {
+    @ColumnInfo (name = "primaryKey")
+    private final long primaryKey;
+
+    @ColumnInfo (name = "med_name")
+    private final String medName;
+
+    @ColumnInfo (name = "dosage")
+    private final String dosage;
+
+    public MedicationSummary(long primaryKey, String medName, String dosage){
+        this.primaryKey = primaryKey;
+        this.medName = medName;
+        this.dosage = dosage;
+    }
+
+    //getters
+    public long getPrimaryKey() { return this.primaryKey; }
+
+    public String getMedName() { return this.medName; }
+
+    public String getDosage() { return this.dosage; }
+}
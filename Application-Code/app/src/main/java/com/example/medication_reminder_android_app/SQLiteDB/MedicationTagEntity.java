@@ -0,0 +1,87 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Join table between medications and their tags. One row per (medication, tag) pair, indexed
+ * by tag so filtering by tag is an index lookup instead of a LIKE scan over MedicationTable.tags
+ */
+@Entity(tableName = "MedicationTagTable",
+        primaryKeys = {"med_id", "tag"},
+        foreignKeys = {@ForeignKey(entity = MedicationEntity.class, parentColumns = "primaryKey",
+                childColumns = "med_id", onDelete = ForeignKey.CASCADE)},
+        indices = {@Index(value = {"tag", "med_id"})})
+public class MedicationTagEntity {
+    @ColumnInfo(name = "med_id")
+    private long medId;
+
+    @NonNull
+    @ColumnInfo(name = "tag")
+    private String tag; //always normalized, see normalize()
+
+    public MedicationTagEntity(long medId, @NonNull String tag){
+        this.medId = medId;
+        this.tag = tag;
+    }
+
+    //getters
+    public long getMedId() { return this.medId; }
+
+    @NonNull
+    public String getTag() { return this.tag; }
+
+    //setters
+    public void setMedId(long medId) { this.medId = medId; }
+
+    public void setTag(@NonNull String tag) { this.tag = tag; }
+
+    /**
+     * Tags are matched case-insensitively and without surrounding whitespace
+     * @param tag
+     * @return the form the tag is stored and searched in
+     */
+    public static String normalize(String tag){
+        return tag.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Splits a comma separated tag list into distinct normalized tags, dropping empty entries
+     * @param tags comma separated, may be null
+     * @return
+     */
+    public static List<String> parse(String tags){
+        Set<String> parsed = new LinkedHashSet<>();
+        if(tags != null){
+            for(String tag : tags.split(",")){
+                String normalized = normalize(tag);
+                if(!normalized.isEmpty()){
+                    parsed.add(normalized);
+                }
+            }
+        }
+        return new ArrayList<>(parsed);
+    }
+
+    /**
+     * @param medId
+     * @param tags comma separated, may be null
+     * @return one row for each distinct tag in the list
+     */
+    static List<MedicationTagEntity> forMedication(long medId, String tags){
+        List<MedicationTagEntity> rows = new ArrayList<>();
+        for(String tag : parse(tags)){
+            rows.add(new MedicationTagEntity(medId, tag));
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+
+/**
+ * A reminder's primary key and when it is next due, all the alarm scheduler needs to queue it
+ */
+public class ReminderDue {
+    @ColumnInfo (name = "reminder_id")
+    private final long reminderId;
+
+    @ColumnInfo (name = "due_at")
+    private final long dueAt; //epoch millis
+
+    public ReminderDue(long reminderId, long dueAt){
+        this.reminderId = reminderId;
+        this.dueAt = dueAt;
+    }
+
+    //getters
+    public long getReminderId() { return this.reminderId; }
+
+    public long getDueAt() { return this.dueAt; }
+}
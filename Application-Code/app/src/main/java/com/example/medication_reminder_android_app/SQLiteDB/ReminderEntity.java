@@ -2,6 +2,7 @@ package com.example.medication_reminder_android_app.SQLiteDB;
 
 import androidx.room.Entity;
 import androidx.room.ColumnInfo;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
 
@@ -12,7 +13,9 @@ import androidx.room.PrimaryKey;
  //Keeping track of the next index; will be given to you
 */
 
-@Entity(tableName = "ReminderTable")
+@Entity(tableName = "ReminderTable",
+        indices = {@Index(value = {"due_at_epoch_millis", "Classification"}),
+                @Index(value = {"MedApptID", "Classification"})})
 public class ReminderEntity{
     @PrimaryKey(autoGenerate = true)
     private long primaryKey;
@@ -32,6 +35,9 @@ public class ReminderEntity{
                                 // Appointment Table (if Appointment Reminder)
     @ColumnInfo(name = "TimeInterval")
     private Integer timeIntervalIndex; //Will keep track of which timeInterval in the timeRule to use.
+
+    @ColumnInfo(name = "due_at_epoch_millis", defaultValue = "0")
+    private long dueAtEpochMillis; //ApptDate and ApptTime as one sortable value; indexed for the next-reminders queries
     
     public ReminderEntity(String classification, String time, String date, Integer timeIntervalIndex, long medApptId){
         this.classification = classification;
@@ -61,6 +67,8 @@ public class ReminderEntity{
 
     public Integer getTimeIntervalIndex() { return this.timeIntervalIndex; }
 
+    public long getDueAtEpochMillis() { return this.dueAtEpochMillis; }
+
     //setters
     public void setPrimaryKey(long primaryKey) { this.primaryKey = primaryKey; }
 
@@ -68,11 +76,21 @@ public class ReminderEntity{
 
     public void setTime(String time) { this.time = time; }
 
-    public void setDate(String Date) { this.date = date; }
+    public void setDate(String date) { this.date = date; }
 
     public void setMedApptId(long medApptId) { this.medApptId = medApptId; }
 
     public void setTimeIntervalIndex(Integer timeIntervalIndex) { this.timeIntervalIndex = timeIntervalIndex; }
 
+    public void setDueAtEpochMillis(long dueAtEpochMillis) { this.dueAtEpochMillis = dueAtEpochMillis; }
+
+    //a new instance with the same column values, see EntityCache
+    ReminderEntity copy(){
+        ReminderEntity copy = new ReminderEntity(classification, time, date, timeIntervalIndex, medApptId);
+        copy.primaryKey = primaryKey;
+        copy.dueAtEpochMillis = dueAtEpochMillis;
+        return copy;
+    }
+
 
 }
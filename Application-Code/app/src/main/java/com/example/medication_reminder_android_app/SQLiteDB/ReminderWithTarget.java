@@ -0,0 +1,39 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
+
+/**
+ * A reminder together with the names needed to describe what it is for, loaded in one query.
+ * Medication reminders ('M') have targetMedName set, appointment reminders ('A') have
+ * targetApptType set, and targetDoctorName if the appointment is with a doctor.
+ */
+public class ReminderWithTarget {
+    @Embedded
+    private final ReminderEntity reminder;
+
+    @ColumnInfo(name = "target_med_name")
+    private final String targetMedName;
+
+    @ColumnInfo(name = "target_doctor_name")
+    private final String targetDoctorName;
+
+    @ColumnInfo(name = "target_appt_type")
+    private final String targetApptType;
+
+    public ReminderWithTarget(ReminderEntity reminder, String targetMedName, String targetDoctorName, String targetApptType){
+        this.reminder = reminder;
+        this.targetMedName = targetMedName;
+        this.targetDoctorName = targetDoctorName;
+        this.targetApptType = targetApptType;
+    }
+
+    //getters
+    public ReminderEntity getReminder() { return this.reminder; }
+
+    public String getTargetMedName() { return this.targetMedName; }
+
+    public String getTargetDoctorName() { return this.targetDoctorName; }
+
+    public String getTargetApptType() { return this.targetApptType; }
+}
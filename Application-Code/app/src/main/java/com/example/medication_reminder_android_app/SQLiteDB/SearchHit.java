@@ -0,0 +1,30 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+/**
+ * One result of a global search. The id is the primary key of the row in the table for its type.
+ */
+public class SearchHit {
+
+    public enum Type {MEDICATION, DOCTOR, APPOINTMENT}
+
+    private final Type type;
+    private final long id;
+    private final String title;
+    private final double score; //higher is a better match
+
+    public SearchHit(Type type, long id, String title, double score){
+        this.type = type;
+        this.id = id;
+        this.title = title;
+        this.score = score;
+    }
+
+    //getters
+    public Type getType() { return this.type; }
+
+    public long getId() { return this.id; }
+
+    public String getTitle() { return this.title; }
+
+    public double getScore() { return this.score; }
+}
@@ -0,0 +1,284 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import android.util.Log;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A medication's time rule compiled into the times its doses are due.
+ *
+ * The time rule is a comma separated list of hour intervals that repeats: the first dose is at
+ * first_date, the next one interval[0] hours later, then interval[1] hours later and so on,
+ * wrapping back to interval[0] after the last one. The intervals are turned into offsets from
+ * the start of a cycle once, so finding the next dose is arithmetic on the cycle length plus a
+ * search of a handful of offsets, and walking forward with a Cursor is constant time per dose.
+ * No dose is due after end_date.
+ *
+ * Schedules are immutable. forMedication caches them per medication so the rule is only parsed
+ * again if the medication's rule or dates change. The cache is a plain access ordered map rather
+ * than android.util.LruCache so schedules can be tested on the JVM.
+ */
+public final class TimeRuleSchedule {
+
+    /** returned when there are no more doses */
+    public static final long NONE = Long.MIN_VALUE;
+
+    private static final String TAG = "app-schedule";
+    private static final long MILLIS_PER_HOUR = 60 * 60 * 1000L;
+    private static final int MAX_CACHED = 64;
+
+    //least recently used first, guarded by itself
+    private static final Map<Long, TimeRuleSchedule> cache = new LinkedHashMap<Long, TimeRuleSchedule>(16, 0.75f, true){
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, TimeRuleSchedule> eldest){
+            return size() > MAX_CACHED;
+        }
+    };
+
+    private final long firstDueAt; //epoch millis
+    private final long endAt; //epoch millis, Long.MAX_VALUE if there is no end date
+    private final long[] offsets; //offsets[i] = sum of the first i intervals, offsets[0] = 0
+    private final long cycle; //sum of every interval, 0 for a single dose
+
+    //what the schedule was compiled from, to tell whether a cached one is stale
+    private final String sourceRule;
+    private final String sourceFirstDate;
+    private final String sourceEndDate;
+    private final Integer sourceRecurring;
+
+    private TimeRuleSchedule(long firstDueAt, long endAt, long[] offsets, long cycle, MedicationEntity source){
+        this.firstDueAt = firstDueAt;
+        this.endAt = endAt;
+        this.offsets = offsets;
+        this.cycle = cycle;
+        this.sourceRule = source == null ? null : source.getTimeRule();
+        this.sourceFirstDate = source == null ? null : source.getFirstDate();
+        this.sourceEndDate = source == null ? null : source.getEndDate();
+        this.sourceRecurring = source == null ? null : source.getRecurring();
+    }
+
+    /**
+     * The schedule of a medication, compiled on first use and cached after that
+     * @param m
+     * @return
+     * @throws IllegalArgumentException if the medication's first date is missing or malformed
+     */
+    public static TimeRuleSchedule forMedication(MedicationEntity m){
+        TimeRuleSchedule cached;
+        synchronized (cache) {
+            cached = cache.get(m.getPrimaryKey());
+        }
+        if(cached != null && cached.isCompiledFrom(m)){
+            return cached;
+        }
+        TimeRuleSchedule compiled = compile(m); //outside the lock, two threads may both compile it
+        synchronized (cache) {
+            cache.put(m.getPrimaryKey(), compiled);
+        }
+        return compiled;
+    }
+
+    private static TimeRuleSchedule compile(MedicationEntity m){
+        long first = DateTimeCodec.parse(m.getFirstDate());
+        long end = Long.MAX_VALUE;
+        if(m.getEndDate() != null && !m.getEndDate().trim().isEmpty()){
+            end = DateTimeCodec.parse(m.getEndDate());
+        }
+        long[] intervals = null;
+        if(m.getRecurring() == null || m.getRecurring() != 0){
+            try {
+                intervals = parseIntervals(m.getTimeRule());
+            } catch(IllegalArgumentException e){
+                Log.d(TAG, "Medication " + m.getPrimaryKey() + " has an unusable time rule, scheduling one dose", e);
+            }
+        }
+        return build(first, end, intervals, m);
+    }
+
+    /**
+     * Compile a time rule directly
+     * @param timeRule comma separated hour intervals, may be null or empty for a single dose
+     * @param firstDueAt epoch millis of the first dose
+     * @param endAt epoch millis after which no dose is due, Long.MAX_VALUE for no end
+     * @return
+     * @throws IllegalArgumentException if an interval is not a positive number
+     */
+    public static TimeRuleSchedule of(String timeRule, long firstDueAt, long endAt){
+        return build(firstDueAt, endAt, parseIntervals(timeRule), null);
+    }
+
+    private static TimeRuleSchedule build(long firstDueAt, long endAt, long[] intervals, MedicationEntity source){
+        if(intervals == null || intervals.length == 0){
+            return new TimeRuleSchedule(firstDueAt, endAt, new long[]{0}, 0, source);
+        }
+        long[] offsets = new long[intervals.length];
+        long sum = 0;
+        for(int i = 0; i < intervals.length; i++){
+            offsets[i] = sum;
+            sum += intervals[i];
+        }
+        return new TimeRuleSchedule(firstDueAt, endAt, offsets, sum, source);
+    }
+
+    /*
+    Parses "8, 8, 8" or "0.5,23.5" into millis without splitting the string
+     */
+    static long[] parseIntervals(String timeRule){
+        if(timeRule == null) return new long[0];
+        long[] out = new long[4];
+        int count = 0;
+        int i = 0;
+        int n = timeRule.length();
+        while(i < n){
+            while(i < n && timeRule.charAt(i) == ' ') i++;
+            if(i >= n) break;
+            long whole = 0;
+            long fraction = 0;
+            long scale = 1;
+            int digits = 0;
+            while(i < n && Character.isDigit(timeRule.charAt(i))){
+                whole = whole * 10 + (timeRule.charAt(i++) - '0');
+                digits++;
+            }
+            if(i < n && timeRule.charAt(i) == '.'){
+                i++;
+                while(i < n && Character.isDigit(timeRule.charAt(i))){
+                    if(scale < 1_000_000){
+                        fraction = fraction * 10 + (timeRule.charAt(i) - '0');
+                        scale *= 10;
+                    }
+                    i++;
+                    digits++;
+                }
+            }
+            while(i < n && timeRule.charAt(i) == ' ') i++;
+            if(digits == 0 || (i < n && timeRule.charAt(i) != ',')){
+                throw new IllegalArgumentException("Bad time rule: " + timeRule);
+            }
+            i++; //past the comma
+            long millis = whole * MILLIS_PER_HOUR + fraction * MILLIS_PER_HOUR / scale;
+            if(millis <= 0){
+                throw new IllegalArgumentException("Time rule intervals must be positive: " + timeRule);
+            }
+            if(count == out.length) out = Arrays.copyOf(out, count * 2);
+            out[count++] = millis;
+        }
+        return count == out.length ? out : Arrays.copyOf(out, count);
+    }
+
+    private boolean isCompiledFrom(MedicationEntity m){
+        return equal(sourceRule, m.getTimeRule()) && equal(sourceFirstDate, m.getFirstDate())
+                && equal(sourceEndDate, m.getEndDate()) && equal(sourceRecurring, m.getRecurring());
+    }
+
+    private static boolean equal(Object a, Object b){
+        return a == null ? b == null : a.equals(b);
+    }
+
+    //queries
+
+    /**
+     * @param epochMillis
+     * @return the first dose due strictly after epochMillis, or NONE if there are no more
+     */
+    public long nextAfter(long epochMillis){
+        long next;
+        if(epochMillis < firstDueAt){
+            next = firstDueAt;
+        } else if(cycle == 0){
+            return NONE;
+        } else {
+            long elapsed = epochMillis - firstDueAt;
+            long cycles = elapsed / cycle;
+            int i = firstOffsetAfter(elapsed - cycles * cycle);
+            next = i < offsets.length ? firstDueAt + cycles * cycle + offsets[i]
+                    : firstDueAt + (cycles + 1) * cycle;
+        }
+        return next > endAt ? NONE : next;
+    }
+
+    /**
+     * @param epochMillis
+     * @param n
+     * @return up to n doses due strictly after epochMillis, fewer if the schedule ends first
+     */
+    public long[] nextN(long epochMillis, int n){
+        long[] out = new long[n];
+        Cursor cursor = cursorAfter(epochMillis);
+        int count = 0;
+        long next;
+        while(count < n && (next = cursor.next()) != NONE){
+            out[count++] = next;
+        }
+        return count == n ? out : Arrays.copyOf(out, count);
+    }
+
+    /**
+     * @param epochMillis
+     * @return a cursor over the doses due strictly after epochMillis
+     */
+    public Cursor cursorAfter(long epochMillis){
+        return new Cursor(nextAfter(epochMillis));
+    }
+
+    /**
+     * @return number of intervals in one cycle of the rule, 0 for a single dose
+     */
+    public int intervalCount(){ return cycle == 0 ? 0 : offsets.length; }
+
+    public long getFirstDueAt(){ return firstDueAt; }
+
+    public long getEndAt(){ return endAt; }
+
+    //smallest i with offsets[i] > within, offsets.length if there is none
+    private int firstOffsetAfter(long within){
+        int lo = 0;
+        int hi = offsets.length;
+        while(lo < hi){
+            int mid = (lo + hi) >>> 1;
+            if(offsets[mid] > within) hi = mid;
+            else lo = mid + 1;
+        }
+        return lo;
+    }
+
+    /**
+     * Walks forward through the doses of a schedule one at a time. Not thread safe.
+     */
+    public final class Cursor {
+        private long next; //next dose to return, NONE when finished
+        private long cycleStart;
+        private int index; //position of next within its cycle
+
+        private Cursor(long first){
+            next = first;
+            if(first != NONE && cycle != 0){
+                long cycles = (first - firstDueAt) / cycle;
+                cycleStart = firstDueAt + cycles * cycle;
+                index = Arrays.binarySearch(offsets, first - cycleStart);
+            }
+        }
+
+        /**
+         * @return the next dose, or NONE if there are no more
+         */
+        public long next(){
+            long current = next;
+            if(current == NONE) return NONE;
+            if(cycle == 0){
+                next = NONE;
+            } else {
+                index++;
+                if(index == offsets.length){
+                    index = 0;
+                    cycleStart += cycle;
+                }
+                long candidate = cycleStart + offsets[index];
+                next = candidate > endAt ? NONE : candidate;
+            }
+            return current;
+        }
+    }
+}
@@ -1,17 +1,41 @@
 package com.example.medication_reminder_android_app;
 
 import android.app.Activity;
+import android.content.ClipData;
 import android.content.Intent;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
+import android.provider.DocumentsContract;
+import android.util.Log;
 import android.view.View;
+import android.widget.TextView;
 
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.lifecycle.ViewModelProvider;
 
+import com.example.medication_reminder_android_app.FDADatabaseHandler.LabelImporter;
+import com.example.medication_reminder_android_app.NotificationRelay.ReminderScheduler;
+import com.example.medication_reminder_android_app.SQLiteDB.FireDriftStats;
 import com.example.medication_reminder_android_app.SQLiteDB.MainViewModel;
 
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import io.reactivex.Single;
+import io.reactivex.annotations.NonNull;
+import io.reactivex.observers.DisposableSingleObserver;
+import io.reactivex.schedulers.Schedulers;
+
 public class SettingsActivity extends AppCompatActivity {
 
+    private static final int PICK_LABEL_FILE = 1;
+    private static final int PICK_LABEL_FOLDER = 2;
+
     @Override
     /**
      * @author Lucas Colegrove
@@ -52,6 +76,159 @@ public class SettingsActivity extends AppCompatActivity {
                 openDialog();
             }
         });
+
+        /*
+        Pick the parts of an openFDA drug label download (.json or .json.zip) to search offline
+         */
+        findViewById(R.id.import_labels_button).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                Intent pick = new Intent(Intent.ACTION_GET_CONTENT)
+                        .setType("*/*")
+                        .addCategory(Intent.CATEGORY_OPENABLE)
+                        .putExtra(Intent.EXTRA_ALLOW_MULTIPLE, true);
+                startActivityForResult(pick, PICK_LABEL_FILE);
+            }
+        });
+
+        /*
+        Or the folder they were downloaded to. Folders can only be picked from Lollipop on
+         */
+        View importFolder = findViewById(R.id.import_labels_folder_button);
+        if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            importFolder.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    startActivityForResult(new Intent(Intent.ACTION_OPEN_DOCUMENT_TREE), PICK_LABEL_FOLDER);
+                }
+            });
+        } else {
+            importFolder.setVisibility(View.GONE);
+        }
+
+        showFireDriftStats();
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if(resultCode != Activity.RESULT_OK || data == null) return;
+        if(requestCode == PICK_LABEL_FILE){
+            List<Uri> files = new ArrayList<>();
+            ClipData picked = data.getClipData(); //set instead of getData when several were picked
+            if(picked != null){
+                for(int i = 0; i < picked.getItemCount(); i++){
+                    files.add(picked.getItemAt(i).getUri());
+                }
+            } else if(data.getData() != null){
+                files.add(data.getData());
+            }
+            if(!files.isEmpty()) importLabels(Single.just(files));
+        } else if(requestCode == PICK_LABEL_FOLDER && data.getData() != null){
+            Uri folder = data.getData();
+            importLabels(Single.fromCallable(() -> labelFilesIn(folder)));
+        }
+    }
+
+    /**
+     * Import the picked files into the offline label index as one download, showing how fast it
+     * went and how big the index is when done
+     * @param files Single that emits the files, empty if there were none to import
+     */
+    private void importLabels(Single<List<Uri>> files) {
+        TextView status = findViewById(R.id.label_import_status);
+        setImportEnabled(false);
+        status.setText(R.string.label_import_running);
+        LabelImporter importer = new LabelImporter(this);
+        Single<LabelImporter.Report> imported = files.subscribeOn(Schedulers.io()).flatMap(uris -> {
+            if(uris.isEmpty()) throw new FileNotFoundException("No label files picked");
+            List<LabelImporter.Part> parts = new ArrayList<>();
+            for(Uri uri : uris){
+                parts.add(() -> openLabelFile(uri));
+            }
+            return importer.importFrom(parts);
+        });
+        imported.subscribe(new DisposableSingleObserver<LabelImporter.Report>() {
+            @Override
+            public void onSuccess(@NonNull LabelImporter.Report report) {
+                runOnUiThread(() -> {
+                    setImportEnabled(true);
+                    status.setText(getString(R.string.label_import_report, report.getLabels(),
+                            report.getParts(), report.getMillis() / 1000.0, report.getLabelsPerSecond(),
+                            report.getSourceBytes() / 1048576.0, report.getIndexBytes() / 1048576.0));
+                });
+            }
+
+            @Override
+            public void onError(@NonNull Throwable e) {
+                Log.d("app-fda-import", "Could not import labels", e);
+                runOnUiThread(() -> {
+                    setImportEnabled(true);
+                    status.setText(R.string.label_import_failed);
+                });
+            }
+        });
+    }
+
+    private void setImportEnabled(boolean enabled) {
+        findViewById(R.id.import_labels_button).setEnabled(enabled);
+        findViewById(R.id.import_labels_folder_button).setEnabled(enabled);
+    }
+
+    private InputStream openLabelFile(Uri file) throws FileNotFoundException {
+        InputStream in = getContentResolver().openInputStream(file);
+        if(in == null) throw new FileNotFoundException(file.toString());
+        return in;
+    }
+
+    /*
+    The .json and .json.zip files directly in a picked folder, by name so the parts are read in
+    the order openFDA numbered them. Blocks
+     */
+    private List<Uri> labelFilesIn(Uri folder) {
+        List<Uri> files = new ArrayList<>();
+        if(Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) return files;
+        Uri children = DocumentsContract.buildChildDocumentsUriUsingTree(folder,
+                DocumentsContract.getTreeDocumentId(folder));
+        String[] columns = {DocumentsContract.Document.COLUMN_DOCUMENT_ID, DocumentsContract.Document.COLUMN_DISPLAY_NAME};
+        List<String[]> found = new ArrayList<>(); //display name, document id
+        try (Cursor cursor = getContentResolver().query(children, columns, null, null, null)) {
+            while(cursor != null && cursor.moveToNext()){
+                String name = cursor.getString(1);
+                if(name != null && (name.endsWith(".json") || name.endsWith(".json.zip"))){
+                    found.add(new String[]{name, cursor.getString(0)});
+                }
+            }
+        }
+        Collections.sort(found, (a, b) -> a[0].compareTo(b[0]));
+        for(String[] file : found){
+            files.add(DocumentsContract.buildDocumentUriUsingTree(folder, file[1]));
+        }
+        return files;
+    }
+
+    /**
+     * Show how late reminder alarms have been firing, and how many wakeups coalescing saved
+     */
+    private void showFireDriftStats() {
+        MainViewModel model = new ViewModelProvider(this).get(MainViewModel.class);
+        long wakeupsSaved = ReminderScheduler.getInstance(this).getWakeupsSaved();
+        model.getFireDriftStats().subscribeOn(Schedulers.io()).subscribe(new DisposableSingleObserver<FireDriftStats>() {
+            @Override
+            public void onSuccess(@NonNull FireDriftStats stats) {
+                runOnUiThread(() -> {
+                    TextView label = findViewById(R.id.fire_drift_stats);
+                    label.setText(getString(R.string.fire_drift_stats, stats.getSamples(),
+                            stats.getP50() / 1000.0, stats.getP95() / 1000.0, stats.getP99() / 1000.0,
+                            stats.getLateOverOneMinute(), stats.getLateOverTenMinutes(), wakeupsSaved));
+                });
+            }
+
+            @Override
+            public void onError(@NonNull Throwable e) {
+
+            }
+        });
     }
 
     /**
@@ -53,7 +53,7 @@ public class DoctorInputHandler extends InputHandler {
     }
 
     @Override
-    void acknowledgeNotificationRequest(long reminderID, boolean dismissed) {
+    void acknowledgeNotificationRequest(long reminderID, long expectedDueAt, boolean dismissed) {
 
     }
 
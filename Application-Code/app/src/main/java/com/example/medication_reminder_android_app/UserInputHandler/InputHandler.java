@@ -22,7 +22,7 @@ abstract class InputHandler {
 
     abstract void deleteRequest(String name);
 
-    abstract void acknowledgeNotificationRequest(long reminderID, boolean dismissed);
+    abstract void acknowledgeNotificationRequest(long reminderID, long expectedDueAt, boolean dismissed);
 
     abstract void deleteAllRequest();
 
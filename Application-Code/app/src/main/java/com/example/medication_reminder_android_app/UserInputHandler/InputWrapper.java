@@ -4,14 +4,12 @@ import android.util.Log;
 
 import com.example.medication_reminder_android_app.NotificationRelay.OutOfAppNotifications;
 import com.example.medication_reminder_android_app.SQLiteDB.MainViewModel;
-import com.example.medication_reminder_android_app.SQLiteDB.MedicationEntity;
 
 import java.security.InvalidParameterException;
 import java.util.Map;
 
 import io.reactivex.annotations.NonNull;
 import io.reactivex.observers.DisposableSingleObserver;
-import io.reactivex.schedulers.Schedulers;
 
 /**
  * Used to contain the input handlers and send data to them to process.
@@ -58,12 +56,11 @@ public class InputWrapper {
         }
         switch (type) {
             case Medication:
-                medicationInputHandler.inputRequest(input);
-                String medName = input.get("name");
-                mvm.getMedByName(medName).subscribeOn(Schedulers.io()).subscribe(new DisposableSingleObserver<MedicationEntity>() {
+                //schedule once the medication and its reminder have actually been written
+                medicationInputHandler.inputMedicationRequest(input).subscribe(new DisposableSingleObserver<Long>() {
                     @Override
-                    public void onSuccess(@NonNull MedicationEntity medicationEntity) {
-                        outOfAppNotifications.scheduleNotification(medicationEntity.getReminderID());
+                    public void onSuccess(@NonNull Long reminderID) {
+                        outOfAppNotifications.scheduleNotification(reminderID);
                     }
 
                     @Override
@@ -113,16 +110,27 @@ public class InputWrapper {
      * Processes a request to acknowledge a notification
      * @param type The type of the reminder
      * @param reminderID The corresponding ID for the reminder to be acknowledged
+     * @param expectedDueAt The reminder's due time, epoch millis, when its notification was posted
      * @param dismissed Indicated whether the notification was dismissed or acknowledged; true for
      *                  dismissed, false for acknowledged
      * @return A date & time string of the format "YYYY-MM-DD HH:MM" of the next date and time for
      *         the reminder being acknowledged
      */
-    public void processAcknowledgementRequest(InputType type, long reminderID, boolean dismissed) {
+    public void processAcknowledgementRequest(InputType type, long reminderID, long expectedDueAt, boolean dismissed) {
         switch (type) {
             case Medication:
-                medicationInputHandler.acknowledgeNotificationRequest(reminderID, dismissed);
-                outOfAppNotifications.scheduleNotification(reminderID);
+                //reschedule with the due time the acknowledgement committed, not one read before it
+                medicationInputHandler.acknowledgeMedicationRequest(reminderID, expectedDueAt, dismissed).subscribe(new DisposableSingleObserver<Long>() {
+                    @Override
+                    public void onSuccess(@NonNull Long nextDueAt) {
+                        outOfAppNotifications.rescheduleNotification(reminderID, nextDueAt);
+                    }
+
+                    @Override
+                    public void onError(@NonNull Throwable e) {
+                        Log.d("app-debug", "Could not acknowledge reminder " + reminderID, e);
+                    }
+                });
                 break;
             case Appointment:
                 //return appointmentInputHandler.inputRequest(input); TODO
@@ -0,0 +1,145 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DrugLabelParser against building the whole tree with JsonParser.parseReader, as searchOpenFDA
+ * did before it, on a response of LABELS results made from the labels in label_ibuprofen.json.
+ * The tree is read with the same joins as the parser, so both give the same labels.
+ *
+ * Peak heap is the heap still reachable when the parse returns: the tree while its fields are
+ * read, the labels for the parser. Allocation is read from the JVM's per-thread allocation
+ * counter, so run on a HotSpot JVM. The numbers are printed; only memory is asserted, timings
+ * vary too much between machines.
+ */
+public class DrugLabelParserBenchmark {
+
+    private static final int LABELS = 99; //about what a limit=100 search returns
+    private static final int WARMUP = 1000; //the parser is slower than the tree until it is compiled
+    private static final int ITERATIONS = 1000;
+
+    private String response;
+    private long sink; //keeps results alive so the work is not optimized away
+
+    @Before
+    public void buildResponse() throws IOException {
+        JsonObject fixture = JsonParser.parseReader(DrugLabelParserTest.fixture("label_ibuprofen.json")).getAsJsonObject();
+        JsonArray labels = fixture.getAsJsonArray("results");
+        JsonArray results = new JsonArray();
+        for(int i = 0; i < LABELS; i++){
+            results.add(labels.get(i % labels.size()));
+        }
+        fixture.add("results", results);
+        response = fixture.toString();
+    }
+
+    @Test
+    public void sameLabels() throws IOException {
+        List<DrugLabel> streamed = DrugLabelParser.parse(new StringReader(response));
+        List<DrugLabel> fromTree = treeParse(new StringReader(response));
+        assertEquals(LABELS, streamed.size());
+        for(int i = 0; i < LABELS; i++){
+            assertArrayEquals(fromTree.get(i).toArray(), streamed.get(i).toArray());
+        }
+    }
+
+    @Test
+    public void parse() throws IOException {
+        Result tree = measure("JsonParser.parseReader", new Parse() {
+            @Override
+            Object parse(Reader in) { return JsonParser.parseReader(in); }
+        });
+        Result streamed = measure("DrugLabelParser.parse", new Parse() {
+            @Override
+            Object parse(Reader in) throws IOException { return DrugLabelParser.parse(in); }
+        });
+        assertTrue("the parser should hold less than the tree", streamed.peakBytes < tree.peakBytes);
+        assertTrue("the parser should allocate less than the tree", streamed.bytesPerParse < tree.bytesPerParse);
+    }
+
+    private abstract static class Parse {
+        //returns what is reachable when the parse is done
+        abstract Object parse(Reader in) throws IOException;
+    }
+
+    private static final class Result {
+        final double microsPerParse;
+        final double bytesPerParse;
+        final long peakBytes;
+
+        Result(double microsPerParse, double bytesPerParse, long peakBytes) {
+            this.microsPerParse = microsPerParse;
+            this.bytesPerParse = bytesPerParse;
+            this.peakBytes = peakBytes;
+        }
+    }
+
+    private Result measure(String name, Parse parse) throws IOException {
+        for(int i = 0; i < WARMUP; i++) sink += System.identityHashCode(parse.parse(new StringReader(response)));
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long started = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++) sink += System.identityHashCode(parse.parse(new StringReader(response)));
+        long nanos = System.nanoTime() - started;
+        long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+
+        long heapBefore = usedHeap();
+        Object held = parse.parse(new StringReader(response));
+        long peak = usedHeap() - heapBefore;
+        sink += System.identityHashCode(held);
+
+        Result result = new Result(nanos / 1000.0 / ITERATIONS, (double) bytes / ITERATIONS, peak);
+        System.out.printf("%-24s %9.1f us/parse %11.0f bytes/parse %9d bytes held%n", name,
+                result.microsPerParse, result.bytesPerParse, result.peakBytes);
+        return result;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for(int i = 0; i < 3; i++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    //searchOpenFDA before DrugLabelParser, with the parser's joins so missing and array fields read the same
+    private static List<DrugLabel> treeParse(Reader in) {
+        JsonObject root = JsonParser.parseReader(in).getAsJsonObject();
+        List<DrugLabel> labels = new ArrayList<>();
+        for(JsonElement result : root.getAsJsonArray("results")){
+            JsonObject label = result.getAsJsonObject();
+            JsonObject openFda = label.getAsJsonObject("openfda");
+            labels.add(new DrugLabel(text(openFda.get("brand_name"), ", "), text(openFda.get("generic_name"), ", "),
+                    text(openFda.get("substance_name"), ", "), text(label.get("purpose"), "\n"),
+                    text(label.get("warnings"), "\n")));
+        }
+        return labels;
+    }
+
+    private static String text(JsonElement element, String separator) {
+        if(element == null) return null;
+        if(element.isJsonPrimitive()) return element.getAsString();
+        StringBuilder text = new StringBuilder();
+        for(JsonElement value : element.getAsJsonArray()){
+            if(text.length() > 0) text.append(separator);
+            text.append(value.getAsString());
+        }
+        return text.toString();
+    }
+}
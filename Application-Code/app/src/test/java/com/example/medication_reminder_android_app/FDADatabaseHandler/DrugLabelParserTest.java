@@ -0,0 +1,94 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * DrugLabelParser against drug/label responses in src/test/resources/openfda. They are written in
+ * the shape openFDA returns, with the fields the parser skips left in so it has to step over them.
+ */
+public class DrugLabelParserTest {
+
+    @Test
+    public void parse_keepsTheFiveFieldsOfEachResult() throws IOException {
+        List<DrugLabel> labels = DrugLabelParser.parse(fixture("label_ibuprofen.json"));
+
+        assertEquals(3, labels.size());
+        DrugLabel advil = labels.get(0);
+        assertEquals("Advil", advil.getBrandName());
+        assertEquals("IBUPROFEN", advil.getGenericName());
+        assertEquals("IBUPROFEN", advil.getSubstanceName());
+        assertEquals("Pain reliever/fever reducer", advil.getPurpose());
+        assertEquals(3, advil.getWarnings().split("\n").length);
+        assertTrue(advil.getWarnings().startsWith("Warnings Allergy alert"));
+        assertEquals("Tylenol Extra Strength", labels.get(1).getBrandName());
+    }
+
+    @Test
+    public void parse_joinsArraysOfSeveralValues() throws IOException {
+        DrugLabel dualAction = DrugLabelParser.parse(fixture("label_ibuprofen.json")).get(2);
+
+        assertEquals("ACETAMINOPHEN, IBUPROFEN", dualAction.getSubstanceName());
+        assertEquals("Pain reliever\nPain reliever", dualAction.getPurpose());
+    }
+
+    @Test
+    public void parse_missingFieldsAreNull() throws IOException {
+        List<DrugLabel> labels = DrugLabelParser.parse(fixture("label_missing_fields.json"));
+
+        assertEquals(2, labels.size());
+        DrugLabel noOpenFda = labels.get(0);
+        assertNull(noOpenFda.getBrandName());
+        assertNull(noOpenFda.getGenericName());
+        assertNull(noOpenFda.getSubstanceName());
+        assertNull(noOpenFda.getPurpose());
+        assertTrue(noOpenFda.getWarnings().startsWith("Warnings Allergy alert"));
+
+        DrugLabel partial = labels.get(1);
+        assertNull(partial.getBrandName());
+        assertEquals("ACETAMINOPHEN", partial.getGenericName());
+        assertNull(partial.getSubstanceName());
+        assertEquals("Pain reliever/fever reducer", partial.getPurpose());
+        assertNull(partial.getWarnings());
+    }
+
+    @Test
+    public void parse_fieldsThatAreNotArraysOfStrings() throws IOException {
+        List<DrugLabel> labels = DrugLabelParser.parse(fixture("label_non_array_fields.json"));
+
+        assertEquals(3, labels.size());
+        DrugLabel scalars = labels.get(0);
+        assertEquals("a plain string is read as is", "Advil", scalars.getBrandName());
+        assertNull("null", scalars.getGenericName());
+        assertNull("an object", scalars.getSubstanceName());
+        assertEquals("Pain reliever/fever reducer", scalars.getPurpose());
+        assertEquals("a number is read as text", "42", scalars.getWarnings());
+
+        DrugLabel mixed = labels.get(1);
+        assertNull("openfda as an array is skipped", mixed.getBrandName());
+        assertNull(mixed.getSubstanceName());
+        assertEquals("values that are not strings are left out of the join", "Pain reliever\nfever reducer", mixed.getPurpose());
+        assertNull("an empty array", mixed.getWarnings());
+
+        DrugLabel notAnObject = labels.get(2);
+        assertNull(notAnObject.getBrandName());
+        assertNull(notAnObject.getWarnings());
+    }
+
+    @Test
+    public void parse_noMatchesIsEmpty() throws IOException {
+        assertTrue(DrugLabelParser.parse(fixture("label_not_found.json")).isEmpty());
+    }
+
+    static Reader fixture(String name) throws IOException {
+        return new InputStreamReader(DrugLabelParserTest.class.getResourceAsStream("/openfda/" + name), "UTF-8");
+    }
+}
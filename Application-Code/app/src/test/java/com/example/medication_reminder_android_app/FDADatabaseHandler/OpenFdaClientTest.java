@@ -0,0 +1,170 @@
+package com.example.medication_reminder_android_app.FDADatabaseHandler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import io.reactivex.Single;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * OpenFdaClient against a local server answering /drug/label.json with the responses in
+ * src/test/resources/openfda, gzipped as openFDA sends them when asked to
+ */
+public class OpenFdaClientTest {
+
+    private HttpServer server;
+    private OpenFdaClient client;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile String acceptEncoding;
+    private volatile int status = 200;
+    private volatile String fixture = "label_ibuprofen.json";
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/drug/label.json", this::answer);
+        server.start();
+        client = new OpenFdaClient("http://127.0.0.1:" + server.getAddress().getPort(), 6000, 10, 32);
+    }
+
+    @After
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void search_readsGzippedResponse() {
+        List<DrugLabel> labels = client.search("ibuprofen", 3).blockingGet();
+
+        assertEquals("gzip", acceptEncoding);
+        assertEquals(3, labels.size());
+        assertEquals("Advil", labels.get(0).getBrandName());
+    }
+
+    @Test
+    public void identicalSearches_shareOneCall() {
+        Single<List<DrugLabel>> first = client.search("ibuprofen", 3);
+        Single<List<DrugLabel>> second = client.search("ibuprofen", 3); //made while the first is in flight
+
+        List<DrugLabel> firstLabels = first.blockingGet();
+        List<DrugLabel> secondLabels = second.blockingGet();
+
+        assertEquals(1, requests.get());
+        assertSame(firstLabels, secondLabels);
+
+        client.search("ibuprofen", 3).blockingGet();
+        assertEquals("a finished call is not reused", 2, requests.get());
+        client.search("ibuprofen", 1).blockingGet();
+        assertEquals("another limit is another call", 3, requests.get());
+    }
+
+    @Test
+    public void notFound_isEmpty() {
+        status = 404;
+        fixture = "label_not_found.json";
+
+        assertTrue(client.search("no such medication", 3).blockingGet().isEmpty());
+    }
+
+    @Test
+    public void serverError_fails() {
+        status = 500;
+        fixture = "label_not_found.json";
+        try {
+            client.searchNow("ibuprofen", 3);
+            fail("a 500 should not read as no results");
+        } catch(IOException expected) {
+        }
+    }
+
+    @Test
+    public void tokenBucket_waitsWhenEmpty() throws Exception {
+        OpenFdaClient.TokenBucket bucket = new OpenFdaClient.TokenBucket(600, 1, 32); //one token per 100ms
+        bucket.acquire(); //the burst
+
+        long started = System.nanoTime();
+        bucket.acquire();
+        long waitedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertTrue("waited " + waitedMillis + "ms", waitedMillis >= 90);
+    }
+
+    @Test
+    public void tokenBucket_refusesThe33rdWaiter() throws Exception {
+        OpenFdaClient.TokenBucket bucket = new OpenFdaClient.TokenBucket(1, 1, 32); //one token a minute
+        bucket.acquire();
+        List<Thread> waiters = new ArrayList<>();
+        for(int i = 0; i < 32; i++){
+            Thread waiter = new Thread(() -> {
+                try {
+                    bucket.acquire();
+                } catch(InterruptedException | IOException ignored) {
+                }
+            });
+            waiter.setDaemon(true);
+            waiter.start();
+            waiters.add(waiter);
+        }
+        try {
+            for(Thread waiter : waiters){
+                while(waiter.getState() != Thread.State.TIMED_WAITING) Thread.sleep(1);
+            }
+            try {
+                bucket.acquire();
+                fail("32 searches were already waiting");
+            } catch(IOException expected) {
+            }
+        } finally {
+            for(Thread waiter : waiters) waiter.interrupt();
+        }
+    }
+
+    private void answer(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        byte[] body = gzip(read(fixture));
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] read(String name) throws IOException {
+        try (InputStream in = OpenFdaClientTest.class.getResourceAsStream("/openfda/" + name)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while((n = in.read(buffer)) != -1) bytes.write(buffer, 0, n);
+            return bytes.toByteArray();
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(gzipped)) {
+            out.write(bytes);
+        }
+        return gzipped.toByteArray();
+    }
+}
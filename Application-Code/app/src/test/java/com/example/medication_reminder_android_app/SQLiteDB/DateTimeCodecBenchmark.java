@@ -0,0 +1,121 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Calendar;
+import java.util.Date;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Per-call time and allocation of DateTimeCodec against the helpers it replaced, which are copied
+ * here as they were: the String.split and Calendar parse in DateConverters (and getDateAsInt /
+ * getTimeAsInt in OutOfAppNotifications, which did the same), and the Date.toString substring and
+ * month switch in MedicationInputHandler.getSQLDateFormatFromDate.
+ *
+ * Allocation is read from the JVM's per-thread allocation counter, so run on a HotSpot JVM. The
+ * numbers are printed; only allocation is asserted, timings vary too much between machines. Besides
+ * allocating less than the legacy helpers, the codec is held to its class doc: a parse allocates
+ * nothing and a format allocates no more than building the String it returns.
+ */
+public class DateTimeCodecBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 1_000_000;
+    private static final String[] DATES = {"2021-03-01", "2021-07-15", "2021-11-30", "2022-02-28"};
+    private static final String[] TIMES = {"08:00", "12:30", "17:45", "23:59"};
+    //the allocation counter also sees the odd allocation the JIT or a safepoint makes on this thread
+    private static final double NOISE_BYTES = 1;
+
+    private long sink; //keeps results alive so the work is not optimized away
+
+    @Test
+    public void parse() {
+        Result legacy = measure("legacy parse (split + Calendar)", i -> legacyParse(DATES[i & 3], TIMES[i & 3]));
+        Result codec = measure("DateTimeCodec.parse", i -> DateTimeCodec.parse(DATES[i & 3], TIMES[i & 3]));
+        assertTrue("codec should allocate less than the legacy parse", codec.bytesPerCall < legacy.bytesPerCall);
+        assertTrue("codec parse should allocate nothing", codec.bytesPerCall < NOISE_BYTES);
+    }
+
+    @Test
+    public void format() {
+        long[] instants = new long[4];
+        for(int i = 0; i < 4; i++) instants[i] = DateTimeCodec.parse(DATES[i], TIMES[i]);
+        Result legacy = measure("legacy format (Date.toString + switch)", i -> {
+            String[] out = legacyFormat(new Date(instants[i & 3]));
+            return out[0].length() + out[1].length();
+        });
+        Result codec = measure("DateTimeCodec.format", i -> DateTimeCodec.format(instants[i & 3]).length());
+        //what format must allocate anyway: its char[16] and the String made from it
+        Result string = measure("new String(char[16])", i -> new String(new char[16]).length());
+        assertTrue("codec should allocate less than the legacy format", codec.bytesPerCall < legacy.bytesPerCall);
+        assertTrue("codec format should allocate only the returned String",
+                codec.bytesPerCall < string.bytesPerCall + NOISE_BYTES);
+    }
+
+    private interface Call {
+        long run(int i);
+    }
+
+    private static final class Result {
+        final double nanosPerCall;
+        final double bytesPerCall;
+
+        Result(double nanosPerCall, double bytesPerCall) {
+            this.nanosPerCall = nanosPerCall;
+            this.bytesPerCall = bytesPerCall;
+        }
+    }
+
+    private Result measure(String name, Call call) {
+        for(int i = 0; i < WARMUP; i++) sink += call.run(i);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytesBefore = threads.getThreadAllocatedBytes(thread);
+        long started = System.nanoTime();
+        for(int i = 0; i < ITERATIONS; i++) sink += call.run(i);
+        long nanos = System.nanoTime() - started;
+        long bytes = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+        Result result = new Result((double) nanos / ITERATIONS, (double) bytes / ITERATIONS);
+        System.out.printf("%-40s %8.1f ns/call %8.1f bytes/call%n", name, result.nanosPerCall, result.bytesPerCall);
+        return result;
+    }
+
+    //DateConverters.toEpochMillis before DateTimeCodec
+    private static long legacyParse(String date, String time) {
+        String[] d = date.trim().split("-");
+        String[] t = time.trim().split(":");
+        Calendar cal = Calendar.getInstance();
+        cal.clear();
+        cal.set(Integer.parseInt(d[0]), Integer.parseInt(d[1]) - 1, Integer.parseInt(d[2]),
+                Integer.parseInt(t[0]), Integer.parseInt(t[1]), 0);
+        return cal.getTimeInMillis();
+    }
+
+    //MedicationInputHandler.getSQLDateFormatFromDate before DateTimeCodec
+    private static String[] legacyFormat(Date date) {
+        String dStr = date.toString(); // dow mon dd hh:mm:ss zzz yyyy
+        String month = legacyMonthNumber(dStr.substring(4, 7));
+        String d = dStr.substring(24) + "-" + month + "-" + dStr.substring(8, 10);
+        String t = dStr.substring(11, 16);
+        return new String[]{d, t};
+    }
+
+    private static String legacyMonthNumber(String month) {
+        switch(month) {
+            case "Jan": return "01";
+            case "Feb": return "02";
+            case "Mar": return "03";
+            case "Apr": return "04";
+            case "May": return "05";
+            case "Jun": return "06";
+            case "Jul": return "07";
+            case "Aug": return "08";
+            case "Sep": return "09";
+            case "Oct": return "10";
+            case "Nov": return "11";
+            default: return "12";
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class DateTimeCodecTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    @Test
+    public void parse_roundTripsFormat() {
+        long millis = DateTimeCodec.parse("2021-03-14", "02:30", UTC);
+        assertEquals("2021-03-14", DateTimeCodec.formatDate(millis, UTC));
+        assertEquals("02:30", DateTimeCodec.formatTime(millis, UTC));
+    }
+
+    @Test
+    public void parse_acceptsLastDayOfEachMonth() {
+        assertEquals("2021-01-31", DateTimeCodec.formatDate(DateTimeCodec.parse("2021-01-31", "10:00", UTC), UTC));
+        assertEquals("2021-04-30", DateTimeCodec.formatDate(DateTimeCodec.parse("2021-04-30", "10:00", UTC), UTC));
+        assertEquals("2021-02-28", DateTimeCodec.formatDate(DateTimeCodec.parse("2021-02-28", "10:00", UTC), UTC));
+    }
+
+    @Test
+    public void parse_acceptsLeapDays() {
+        assertEquals("2020-02-29", DateTimeCodec.formatDate(DateTimeCodec.parse("2020-02-29", "10:00", UTC), UTC));
+        assertEquals("2000-02-29", DateTimeCodec.formatDate(DateTimeCodec.parse("2000-02-29", "10:00", UTC), UTC));
+    }
+
+    @Test
+    public void parse_rejectsDaysPastTheEndOfTheMonth() {
+        assertRejected("2021-02-31", "10:00");
+        assertRejected("2021-02-29", "10:00"); //not a leap year
+        assertRejected("2100-02-29", "10:00"); //divisible by 100 but not 400
+        assertRejected("2021-04-31", "10:00");
+        assertRejected("2021-06-31", "10:00");
+        assertRejected("2021-09-31", "10:00");
+        assertRejected("2021-11-31", "10:00");
+    }
+
+    @Test
+    public void parse_rejectsOutOfRangeFields() {
+        assertRejected("2021-13-01", "10:00");
+        assertRejected("2021-00-01", "10:00");
+        assertRejected("2021-01-00", "10:00");
+        assertRejected("2021-01-01", "24:00");
+        assertRejected("2021-01-01", "10:60");
+    }
+
+    @Test
+    public void refreshDefaultZone_picksUpTheNewZone() {
+        TimeZone device = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(UTC);
+            DateTimeCodec.refreshDefaultZone();
+            long millis = DateTimeCodec.parse("2021-03-01", "08:00", UTC);
+            assertEquals("2021-03-01 08:00", DateTimeCodec.format(millis));
+
+            TimeZone.setDefault(TimeZone.getTimeZone("GMT+02:00"));
+            assertEquals("kept until refreshed", "2021-03-01 08:00", DateTimeCodec.format(millis));
+            DateTimeCodec.refreshDefaultZone();
+            assertEquals("2021-03-01 10:00", DateTimeCodec.format(millis));
+        } finally {
+            TimeZone.setDefault(device);
+            DateTimeCodec.refreshDefaultZone();
+        }
+    }
+
+    private static void assertRejected(String date, String time) {
+        try {
+            DateTimeCodec.parse(date, time, UTC);
+            fail("Expected " + date + " " + time + " to be rejected");
+        } catch(IllegalArgumentException expected) {
+        }
+    }
+}
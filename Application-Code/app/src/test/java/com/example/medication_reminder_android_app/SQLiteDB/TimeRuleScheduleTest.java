@@ -0,0 +1,183 @@
+package com.example.medication_reminder_android_app.SQLiteDB;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Times are written in UTC, which the default zone is set to, so hour intervals and wall clock
+ * hours line up whatever zone the machine running the tests is in
+ */
+public class TimeRuleScheduleTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private TimeZone device;
+
+    @Before
+    public void useUtc() {
+        device = TimeZone.getDefault();
+        TimeZone.setDefault(UTC);
+        DateTimeCodec.refreshDefaultZone();
+    }
+
+    @After
+    public void restoreZone() {
+        TimeZone.setDefault(device);
+        DateTimeCodec.refreshDefaultZone();
+    }
+
+    @Test
+    public void nextN_wrapsIntervalsPastMidnight() {
+        TimeRuleSchedule schedule = TimeRuleSchedule.of("8, 8, 8", at("2021-03-01 20:00"), Long.MAX_VALUE);
+        assertDoses(schedule.nextN(at("2021-03-01 19:59"), 5),
+                "2021-03-01 20:00", "2021-03-02 04:00", "2021-03-02 12:00", "2021-03-02 20:00", "2021-03-03 04:00");
+    }
+
+    @Test
+    public void nextN_unevenIntervalsCrossMidnight() {
+        TimeRuleSchedule schedule = TimeRuleSchedule.of("10, 14", at("2021-03-01 22:00"), Long.MAX_VALUE);
+        assertDoses(schedule.nextN(at("2021-03-01 22:00"), 4),
+                "2021-03-02 08:00", "2021-03-02 22:00", "2021-03-03 08:00", "2021-03-03 22:00");
+    }
+
+    @Test
+    public void nextAfter_crossesMonthEnd() {
+        TimeRuleSchedule schedule = TimeRuleSchedule.of("12", at("2021-01-31 18:00"), Long.MAX_VALUE);
+        assertEquals(at("2021-02-01 06:00"), schedule.nextAfter(at("2021-01-31 18:00")));
+        assertEquals(at("2021-05-01 06:00"), schedule.nextAfter(at("2021-04-30 18:00")));
+    }
+
+    @Test
+    public void nextN_crossesLeapDayAndYearEnd() {
+        TimeRuleSchedule daily = TimeRuleSchedule.of("24", at("2020-02-28 20:00"), Long.MAX_VALUE);
+        assertDoses(daily.nextN(at("2020-02-28 20:00"), 2), "2020-02-29 20:00", "2020-03-01 20:00");
+        assertEquals(at("2021-01-01 20:00"), daily.nextAfter(at("2020-12-31 20:00")));
+    }
+
+    @Test
+    public void nextAfter_isStrictlyAfter() {
+        TimeRuleSchedule schedule = TimeRuleSchedule.of("6", at("2021-03-01 08:00"), Long.MAX_VALUE);
+        assertEquals("before the first dose", at("2021-03-01 08:00"), schedule.nextAfter(at("2021-02-01 00:00")));
+        assertEquals("on a dose", at("2021-03-01 14:00"), schedule.nextAfter(at("2021-03-01 08:00")));
+        assertEquals("a minute before a dose", at("2021-03-01 14:00"), schedule.nextAfter(at("2021-03-01 13:59")));
+    }
+
+    @Test
+    public void nextAfter_fractionalIntervals() {
+        TimeRuleSchedule schedule = TimeRuleSchedule.of("0.5,23.5", at("2021-03-01 23:45"), Long.MAX_VALUE);
+        assertDoses(schedule.nextN(at("2021-03-01 23:45"), 3), "2021-03-02 00:15", "2021-03-02 23:45", "2021-03-03 00:15");
+    }
+
+    @Test
+    public void endDate_stopsDoses() {
+        MedicationEntity m = medication(1, "12", "2021-03-01 08:00", "2021-03-02 08:00");
+        TimeRuleSchedule schedule = TimeRuleSchedule.forMedication(m);
+        assertEquals("a dose on the end date is still due", at("2021-03-02 08:00"), schedule.nextAfter(at("2021-03-02 07:59")));
+        assertEquals(TimeRuleSchedule.NONE, schedule.nextAfter(at("2021-03-02 08:00")));
+        assertEquals(TimeRuleSchedule.NONE, schedule.nextAfter(at("2021-06-01 00:00")));
+        assertDoses(schedule.nextN(at("2021-03-01 00:00"), 10), "2021-03-01 08:00", "2021-03-01 20:00", "2021-03-02 08:00");
+    }
+
+    @Test
+    public void endDate_beforeFirstDose_hasNoDoses() {
+        TimeRuleSchedule schedule = TimeRuleSchedule.of("8", at("2021-03-01 08:00"), at("2021-02-01 08:00"));
+        assertEquals(TimeRuleSchedule.NONE, schedule.nextAfter(at("2021-01-01 00:00")));
+        assertEquals(0, schedule.nextN(at("2021-01-01 00:00"), 3).length);
+    }
+
+    @Test
+    public void singleDose_whenNotRecurring() {
+        MedicationEntity m = medication(2, "8", "2021-03-01 08:00", "");
+        m.setRecurring(0);
+        TimeRuleSchedule schedule = TimeRuleSchedule.forMedication(m);
+        assertEquals(0, schedule.intervalCount());
+        assertEquals(at("2021-03-01 08:00"), schedule.nextAfter(at("2021-03-01 07:00")));
+        assertEquals(TimeRuleSchedule.NONE, schedule.nextAfter(at("2021-03-01 08:00")));
+    }
+
+    @Test
+    public void nextN_isAscendingAndMatchesNextAfter() {
+        TimeRuleSchedule schedule = TimeRuleSchedule.of("3, 5, 16", at("2021-01-30 07:00"), Long.MAX_VALUE);
+        long from = at("2021-02-27 11:00");
+        long[] doses = schedule.nextN(from, 50);
+        assertEquals(50, doses.length);
+        long previous = from;
+        for(long dose : doses) {
+            assertTrue("doses in ascending order", dose > previous);
+            assertEquals(schedule.nextAfter(previous), dose);
+            previous = dose;
+        }
+    }
+
+    @Test
+    public void cursor_walksTheSameDosesAsNextN() {
+        TimeRuleSchedule schedule = TimeRuleSchedule.of("7, 17", at("2021-03-30 09:00"), at("2021-04-04 09:00"));
+        long from = at("2021-03-31 12:00");
+        TimeRuleSchedule.Cursor cursor = schedule.cursorAfter(from);
+        for(long dose : schedule.nextN(from, 100)) {
+            assertEquals(dose, cursor.next());
+        }
+        assertEquals(TimeRuleSchedule.NONE, cursor.next());
+    }
+
+    @Test
+    public void forMedication_cachesUntilTheRuleChanges() {
+        MedicationEntity m = medication(3, "8", "2021-03-01 08:00", "");
+        TimeRuleSchedule first = TimeRuleSchedule.forMedication(m);
+        assertSame(first, TimeRuleSchedule.forMedication(m));
+
+        m.setTimeRule("12");
+        TimeRuleSchedule changed = TimeRuleSchedule.forMedication(m);
+        assertNotSame(first, changed);
+        assertEquals(at("2021-03-01 20:00"), changed.nextAfter(at("2021-03-01 08:00")));
+    }
+
+    @Test
+    public void parseIntervals_rejectsBadRules() {
+        assertRejected("8,,8");
+        assertRejected("0");
+        assertRejected("eight");
+        assertRejected("8; 8");
+    }
+
+    @Test
+    public void parseIntervals_readsSpacedAndFractionalHours() {
+        assertArrayEquals(new long[]{8 * 3_600_000L, 30 * 60_000L, 16 * 3_600_000L},
+                TimeRuleSchedule.parseIntervals(" 8 , 0.5,16 "));
+        assertEquals(0, TimeRuleSchedule.parseIntervals("").length);
+    }
+
+    private static long at(String dateTime) {
+        return DateTimeCodec.parse(dateTime);
+    }
+
+    private static MedicationEntity medication(long primaryKey, String timeRule, String firstDate, String endDate) {
+        MedicationEntity m = new MedicationEntity("Ibuprofen", "200 mg", 1, firstDate, endDate, timeRule, "", "", "");
+        m.setPrimaryKey(primaryKey);
+        return m;
+    }
+
+    private static void assertDoses(long[] doses, String... expected) {
+        String[] actual = new String[doses.length];
+        for(int i = 0; i < doses.length; i++) actual[i] = DateTimeCodec.format(doses[i]);
+        assertArrayEquals(expected, actual);
+    }
+
+    private static void assertRejected(String timeRule) {
+        try {
+            TimeRuleSchedule.parseIntervals(timeRule);
+            fail("Expected " + timeRule + " to be rejected");
+        } catch(IllegalArgumentException expected) {
+        }
+    }
+}